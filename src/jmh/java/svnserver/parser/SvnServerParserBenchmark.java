@@ -0,0 +1,127 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.parser;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import svnserver.parser.token.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser benchmark on editor command stream (like commit with many small svndiff windows).
+ * <p>
+ * Buffer size 1 emulates previous parser implementation which read socket stream byte by byte.
+ * Benchmark {@link #tokens} uses token objects for every element as previous parser did.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SvnServerParserBenchmark {
+  private static final int COMMANDS = 1000;
+
+  @Param({"1", "8192"})
+  public int bufferSize;
+  @Param({"64", "4096"})
+  public int chunkSize;
+
+  private byte[] data;
+
+  @Setup
+  public void setup() throws IOException {
+    final byte[] chunk = new byte[chunkSize];
+    for (int i = 0; i < chunk.length; ++i) {
+      chunk[i] = (byte) i;
+    }
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    final SvnServerWriter writer = new SvnServerWriter(stream);
+    for (int i = 0; i < COMMANDS; ++i) {
+      writer
+          .listBegin()
+          .word("target-rev")
+          .listBegin()
+          .number(i)
+          .listEnd()
+          .listEnd();
+      writer
+          .listBegin()
+          .word("textdelta-chunk")
+          .listBegin()
+          .string("c" + i)
+          .binary(chunk)
+          .listEnd()
+          .listEnd();
+    }
+    data = stream.toByteArray();
+  }
+
+  @Benchmark
+  public void tokens(@NotNull Blackhole blackhole) throws IOException {
+    final SvnServerParser parser = createParser();
+    for (int i = 0; i < COMMANDS; ++i) {
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readToken(TextToken.class).getText());
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readToken(NumberToken.class).getNumber());
+      parser.readToken(ListEndToken.class);
+      parser.readToken(ListEndToken.class);
+
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readToken(TextToken.class).getText());
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readToken(TextToken.class).getText());
+      blackhole.consume(parser.readToken(StringToken.class).getData());
+      parser.readToken(ListEndToken.class);
+      parser.readToken(ListEndToken.class);
+    }
+    checkEnd(parser);
+  }
+
+  @Benchmark
+  public void primitive(@NotNull Blackhole blackhole) throws IOException {
+    final SvnServerParser parser = createParser();
+    for (int i = 0; i < COMMANDS; ++i) {
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readText());
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readNumber());
+      parser.readToken(ListEndToken.class);
+      parser.readToken(ListEndToken.class);
+
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readText());
+      parser.readToken(ListBeginToken.class);
+      blackhole.consume(parser.readText());
+      blackhole.consume(MessageParser.parse(byte[].class, parser));
+      parser.readToken(ListEndToken.class);
+      parser.readToken(ListEndToken.class);
+    }
+    checkEnd(parser);
+  }
+
+  @NotNull
+  private SvnServerParser createParser() {
+    return new SvnServerParser(new ByteArrayInputStream(data), bufferSize);
+  }
+
+  private static void checkEnd(@NotNull SvnServerParser parser) throws IOException {
+    try {
+      parser.readToken();
+      throw new IllegalStateException("Unexpected data at end of stream");
+    } catch (EOFException ignored) {
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.parser;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writer benchmark on editor command stream (like checkout of many small files).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SvnServerWriterBenchmark {
+  private static final int FILES = 1000;
+
+  @Param({"64", "4096"})
+  public int chunkSize;
+
+  private byte[] chunk;
+
+  @Setup
+  public void setup() {
+    chunk = new byte[chunkSize];
+    for (int i = 0; i < chunk.length; ++i) {
+      chunk[i] = (byte) i;
+    }
+  }
+
+  @Benchmark
+  public void editorCommands() throws IOException {
+    final SvnServerWriter writer = new SvnServerWriter(NullOutputStream.NULL_OUTPUT_STREAM);
+    for (int i = 0; i < FILES; ++i) {
+      final String token = "c" + i;
+      writer
+          .listBegin()
+          .word("add-file")
+          .listBegin()
+          .string("trunk/dir/file" + i + ".txt")
+          .string("d1")
+          .string(token)
+          .listBegin()
+          .listEnd()
+          .listEnd()
+          .listEnd();
+      writer
+          .listBegin()
+          .word("apply-textdelta")
+          .listBegin()
+          .string(token)
+          .listBegin()
+          .listEnd()
+          .listEnd()
+          .listEnd();
+      writer
+          .listBegin()
+          .word("textdelta-chunk")
+          .listBegin()
+          .string(token)
+          .binary(chunk)
+          .listEnd()
+          .listEnd();
+      writer
+          .listBegin()
+          .word("close-file")
+          .listBegin()
+          .string(token)
+          .listBegin()
+          .string("d41d8cd98f00b204e9800998ecf8427e")
+          .listEnd()
+          .listEnd()
+          .listEnd();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.SyntheticRepository;
+import svnserver.repository.locks.PersistentLockFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChangeHelper#collectChanges} benchmark on neighbour commits of synthetic history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChangeHelperBenchmark {
+  private static final int COMMITS = 100;
+
+  @Param({"100", "2000"})
+  public int files;
+
+  private Repository repository;
+  private GitRepository gitRepository;
+  private final List<RevCommit> commits = new ArrayList<>();
+
+  @Setup
+  public void setup() throws IOException, SVNException {
+    repository = SyntheticRepository.create(COMMITS, files);
+    final DB cacheDb = DBMaker.newMemoryDB().make();
+    gitRepository = new GitRepository(
+        repository,
+        Collections.emptyList(),
+        GitPushMode.SIMPLE,
+        Constants.MASTER,
+        true,
+        false,
+        GitRepository.DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE,
+        GitRepository.DEFAULT_FILE_PROPERTY_CACHE_SIZE,
+        new PersistentLockFactory(cacheDb),
+        cacheDb
+    );
+    final RevWalk revWalk = new RevWalk(repository);
+    revWalk.markStart(revWalk.parseCommit(repository.getRef(Constants.R_HEADS + Constants.MASTER).getObjectId()));
+    for (RevCommit commit : revWalk) {
+      commits.add(commit);
+    }
+    Collections.reverse(commits);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    gitRepository.close();
+    repository.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COMMITS - 1)
+  public void collectChanges(Blackhole blackhole) throws IOException, SVNException {
+    GitFile oldTree = new GitFile(gitRepository, commits.get(0), 0);
+    for (int i = 1; i < commits.size(); ++i) {
+      final GitFile newTree = new GitFile(gitRepository, commits.get(i), i);
+      blackhole.consume(ChangeHelper.collectChanges(oldTree, newTree, false));
+      oldTree = newTree;
+    }
+  }
+}
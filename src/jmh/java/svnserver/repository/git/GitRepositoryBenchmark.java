@@ -0,0 +1,107 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.openjdk.jmh.annotations.*;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.SyntheticRepository;
+import svnserver.repository.locks.PersistentLockFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revision loading benchmark on synthetic history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GitRepositoryBenchmark {
+  private static final int FILES = 500;
+  @NotNull
+  private static final String CACHE_REF = "refs/git-as-svn/v1/" + Constants.MASTER;
+
+  @Param({"1000", "5000"})
+  public int commits;
+
+  private Repository repository;
+  // Repository, created by last benchmark invocation.
+  private GitRepository gitRepository;
+
+  @Setup
+  public void setup() throws IOException, SVNException {
+    repository = SyntheticRepository.create(commits, FILES);
+    // Build svn revision cache.
+    createRepository().close();
+  }
+
+  /**
+   * Every repository owns reference watcher thread, so it should be closed after each invocation.
+   */
+  @TearDown(Level.Invocation)
+  public void closeRepository() throws IOException {
+    if (gitRepository != null) {
+      gitRepository.close();
+      gitRepository = null;
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    repository.close();
+  }
+
+  /**
+   * Startup with already cached revisions ({@link GitRepository#loadRevisions()}).
+   */
+  @Benchmark
+  public GitRepository loadRevisions() throws IOException, SVNException {
+    gitRepository = createRepository();
+    return gitRepository;
+  }
+
+  /**
+   * Startup without revision cache ({@link GitRepository#cacheRevisions()}).
+   * Cache dropping is cheap compared with whole history processing.
+   */
+  @Benchmark
+  public GitRepository cacheRevisions() throws IOException, SVNException {
+    final RefUpdate refUpdate = repository.updateRef(CACHE_REF);
+    refUpdate.setForceUpdate(true);
+    refUpdate.delete();
+    gitRepository = createRepository();
+    return gitRepository;
+  }
+
+  @NotNull
+  private GitRepository createRepository() throws IOException, SVNException {
+    final DB cacheDb = DBMaker.newMemoryDB().make();
+    return new GitRepository(
+        repository,
+        Collections.emptyList(),
+        GitPushMode.SIMPLE,
+        Constants.MASTER,
+        true,
+        false,
+        GitRepository.DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE,
+        GitRepository.DEFAULT_FILE_PROPERTY_CACHE_SIZE,
+        new PersistentLockFactory(cacheDb),
+        cacheDb
+    );
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.eclipse.jgit.lib.Constants;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+import svnserver.SvnTestServer;
+import svnserver.SyntheticRepository;
+import svnserver.replay.SVNEditorWrapper;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client-visible server latency on synthetic history: full checkout (DeltaCmd) and log (LogCmd).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SvnServerBenchmark {
+  private static final int FILES = 1000;
+
+  @Param({"100", "2000"})
+  public int commits;
+
+  private SvnTestServer server;
+  private SVNRepository repository;
+  private long latestRevision;
+
+  @Setup
+  public void setup() throws Exception {
+    // History is generated before server start: server indexes it on startup.
+    server = SvnTestServer.create(SyntheticRepository.create(commits, FILES), Constants.MASTER);
+    repository = server.openSvnRepository();
+    latestRevision = repository.getLatestRevision();
+    if (latestRevision < commits) {
+      throw new IllegalStateException("Synthetic history is not indexed: " + latestRevision + " of " + commits + " revisions");
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    repository.closeSession();
+    server.close();
+  }
+
+  @Benchmark
+  public int checkout() throws SVNException {
+    final CountingEditor editor = new CountingEditor();
+    repository.checkout(latestRevision, null, true, editor);
+    return editor.files.get();
+  }
+
+  @Benchmark
+  public int log() throws SVNException {
+    return log(false);
+  }
+
+  @Benchmark
+  public int logVerbose() throws SVNException {
+    return log(true);
+  }
+
+  private int log(boolean changedPaths) throws SVNException {
+    final AtomicInteger count = new AtomicInteger();
+    repository.log(new String[]{""}, latestRevision, 0, changedPaths, false, logEntry -> count.incrementAndGet());
+    return count.get();
+  }
+
+  private static final class CountingEditor extends SVNEditorWrapper {
+    @NotNull
+    private final AtomicInteger files = new AtomicInteger();
+
+    private CountingEditor() {
+      super(null);
+    }
+
+    @Override
+    public void addFile(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+      files.incrementAndGet();
+    }
+
+    @Override
+    public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+      return NullOutputStream.NULL_OUTPUT_STREAM;
+    }
+  }
+}
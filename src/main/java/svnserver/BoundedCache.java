@@ -0,0 +1,179 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache with least-recently-used eviction.
+ * <p>
+ * Cache size is limited by total weight of values (by default every value has weight 1).
+ * Values are loaded without cache lock, so same value can be loaded concurrently by several threads.
+ * <p>
+ * Large cache is split into segments by key hash: every segment has own lock and own least-recently-used order
+ * with equal part of weight limit, so concurrent lookups of different keys mostly don't wait for each other.
+ */
+public final class BoundedCache<K, V> {
+  private static final int MAX_SEGMENTS = 16;
+  // Segment weight limit should be large enough for least-recently-used order to make sense.
+  private static final long MIN_SEGMENT_WEIGHT = 256;
+
+  private final long maxWeight;
+  @NotNull
+  private final Weigher<K, V> weigher;
+  @NotNull
+  private final Segment<K, V>[] segments;
+  @NotNull
+  private final AtomicLong hits = new AtomicLong();
+  @NotNull
+  private final AtomicLong misses = new AtomicLong();
+  @NotNull
+  private final AtomicLong evictions = new AtomicLong();
+
+  public BoundedCache(long maxSize) {
+    this(maxSize, (key, value) -> 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  public BoundedCache(long maxWeight, @NotNull Weigher<K, V> weigher) {
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+    int count = 1;
+    while (count < MAX_SEGMENTS && maxWeight / (count * 2) >= MIN_SEGMENT_WEIGHT) {
+      count *= 2;
+    }
+    segments = new Segment[count];
+    for (int i = 0; i < count; ++i) {
+      // Distribute remainder of weight limit, so total limit is exactly maxWeight.
+      segments[i] = new Segment<>(maxWeight / count + (i < maxWeight % count ? 1 : 0));
+    }
+  }
+
+  @NotNull
+  public <E extends Exception> V get(@NotNull K key, @NotNull Loader<K, V, E> loader) throws E {
+    final V cached = getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    final V value = loader.load(key);
+    put(key, value);
+    return value;
+  }
+
+  /**
+   * Get cached value without loading. Missing value can be added by {@link #put(Object, Object)}.
+   */
+  @Nullable
+  public V getIfPresent(@NotNull K key) {
+    final Segment<K, V> segment = segmentFor(key);
+    final V value;
+    synchronized (segment) {
+      value = segment.map.get(key);
+    }
+    (value != null ? hits : misses).incrementAndGet();
+    return value;
+  }
+
+  public void put(@NotNull K key, @NotNull V value) {
+    final long valueWeight = weigher.weigh(key, value);
+    final Segment<K, V> segment = segmentFor(key);
+    if (valueWeight > segment.maxWeight) {
+      return;
+    }
+    synchronized (segment) {
+      final V oldValue = segment.map.put(key, value);
+      if (oldValue != null) {
+        segment.weight -= weigher.weigh(key, oldValue);
+      }
+      segment.weight += valueWeight;
+      final Iterator<Map.Entry<K, V>> iter = segment.map.entrySet().iterator();
+      while (segment.weight > segment.maxWeight) {
+        final Map.Entry<K, V> eldest = iter.next();
+        segment.weight -= weigher.weigh(eldest.getKey(), eldest.getValue());
+        iter.remove();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        size += segment.map.size();
+      }
+    }
+    return size;
+  }
+
+  public long getWeight() {
+    long weight = 0;
+    for (Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        weight += segment.weight;
+      }
+    }
+    return weight;
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  @Override
+  public String toString() {
+    return "weight: " + getWeight() + "/" + maxWeight + ", hits: " + hits.get() + ", misses: " + misses.get() + ", evictions: " + evictions.get();
+  }
+
+  @NotNull
+  private Segment<K, V> segmentFor(@NotNull K key) {
+    final int hash = key.hashCode();
+    // Spread high bits: keys like ObjectId can differ mostly in high bits.
+    return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+  }
+
+  private static final class Segment<K, V> {
+    private final long maxWeight;
+    @NotNull
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private Segment(long maxWeight) {
+      this.maxWeight = maxWeight;
+    }
+  }
+
+  @FunctionalInterface
+  public interface Loader<K, V, E extends Exception> {
+    @NotNull
+    V load(@NotNull K key) throws E;
+  }
+
+  @FunctionalInterface
+  public interface Weigher<K, V> {
+    long weigh(@NotNull K key, @NotNull V value);
+  }
+}
@@ -19,7 +19,7 @@ import java.io.OutputStream;
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
 public final class StreamHelper {
-  private static final int BUFFER_SIZE = 32 * 1024;
+  public static final int BUFFER_SIZE = 32 * 1024;
 
   private StreamHelper() {
   }
@@ -9,6 +9,7 @@ package svnserver.config;
 
 import org.jetbrains.annotations.NotNull;
 import svnserver.config.serializer.ConfigType;
+import svnserver.server.ConnectionMode;
 
 import java.util.concurrent.TimeUnit;
 
@@ -38,9 +39,17 @@ public final class Config {
   @NotNull
   private AclConfig acl = new AclConfig();
 
+  @NotNull
+  private ConnectionMode connectionMode = ConnectionMode.THREAD;
+
   private int port = 3690;
+  private int workerThreads = 0;
+  private int commitThreads = 0;
+  private long connectionTimeout = TimeUnit.SECONDS.toMillis(60);
   private boolean reuseAddress = false;
   private long shutdownTimeout = TimeUnit.SECONDS.toMillis(5);
+  private long deltaCacheMemory = 64 * 1024 * 1024;
+  private long deltaCacheSize = 1024 * 1024 * 1024;
 
   @SuppressWarnings("UnusedDeclaration")
   public Config() {
@@ -88,6 +97,46 @@ public final class Config {
     return acl;
   }
 
+  @NotNull
+  public ConnectionMode getConnectionMode() {
+    return connectionMode;
+  }
+
+  public void setConnectionMode(@NotNull ConnectionMode connectionMode) {
+    this.connectionMode = connectionMode;
+  }
+
+  /**
+   * Worker thread count for {@link ConnectionMode#NIO} mode.
+   *
+   * @return Worker thread count (0 - detect by processor count).
+   */
+  public int getWorkerThreads() {
+    return workerThreads;
+  }
+
+  public void setWorkerThreads(int workerThreads) {
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Thread count for file content processing of commits (delta application and blob insertion).
+   *
+   * @return Thread count (0 - detect by processor count).
+   */
+  public int getCommitThreads() {
+    return commitThreads;
+  }
+
+  /**
+   * Timeout for waiting client data while command is executed in {@link ConnectionMode#NIO} mode.
+   *
+   * @return Timeout in milliseconds.
+   */
+  public long getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
   public boolean getReuseAddress() {
     return reuseAddress;
   }
@@ -96,6 +145,24 @@ public final class Config {
     return shutdownTimeout;
   }
 
+  /**
+   * Memory size for recently used svndiff deltas.
+   *
+   * @return Memory size in bytes (0 - don't keep deltas in memory).
+   */
+  public long getDeltaCacheMemory() {
+    return deltaCacheMemory;
+  }
+
+  /**
+   * Maximum total size of svndiff deltas in persistent cache.
+   *
+   * @return Size in bytes (0 - don't store deltas in persistent cache).
+   */
+  public long getDeltaCacheSize() {
+    return deltaCacheSize;
+  }
+
   @NotNull
   public CacheConfig getCacheConfig() {
     return cacheConfig;
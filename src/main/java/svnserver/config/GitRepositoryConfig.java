@@ -48,6 +48,9 @@ public final class GitRepositoryConfig implements RepositoryConfig {
   @NotNull
   private GitCreateMode createMode = GitCreateMode.ERROR;
   private boolean renameDetection = true;
+  private boolean backgroundIndexing = false;
+  private int directoryPropertyCacheSize = GitRepository.DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE;
+  private int filePropertyCacheSize = GitRepository.DEFAULT_FILE_PROPERTY_CACHE_SIZE;
 
   @NotNull
   public String[] getSubmodules() {
@@ -63,6 +66,18 @@ public final class GitRepositoryConfig implements RepositoryConfig {
     return renameDetection;
   }
 
+  public boolean isBackgroundIndexing() {
+    return backgroundIndexing;
+  }
+
+  public int getDirectoryPropertyCacheSize() {
+    return directoryPropertyCacheSize;
+  }
+
+  public int getFilePropertyCacheSize() {
+    return filePropertyCacheSize;
+  }
+
   @NotNull
   public Repository createRepository(@NotNull File basePath) throws IOException {
     final File fullPath = ConfigHelper.joinPath(basePath, path);
@@ -92,6 +107,6 @@ public final class GitRepositoryConfig implements RepositoryConfig {
   @NotNull
   @Override
   public VcsRepository create(@NotNull File basePath, @NotNull DB cacheDb) throws IOException, SVNException {
-    return new GitRepository(createRepository(basePath), createLinkedRepositories(), getPushMode(), branch, isRenameDetection(), new PersistentLockFactory(cacheDb), cacheDb);
+    return new GitRepository(createRepository(basePath), createLinkedRepositories(), getPushMode(), branch, isRenameDetection(), isBackgroundIndexing(), getDirectoryPropertyCacheSize(), getFilePropertyCacheSize(), new PersistentLockFactory(cacheDb), cacheDb);
   }
 }
@@ -107,8 +107,8 @@ public final class MessageParser {
     if (tokenParser == null) {
       return "";
     }
-    final TextToken token = tokenParser.readItem(TextToken.class);
-    return token != null ? token.getText() : "";
+    final String text = tokenParser.readTextItem();
+    return text != null ? text : "";
   }
 
   @NotNull
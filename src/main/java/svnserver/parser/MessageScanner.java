@@ -0,0 +1,100 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.parser;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Finds ends of top-level messages in svn protocol stream without token parsing.
+ * <p>
+ * Scanner tracks only list depth, string data boundaries and word boundaries, so received data can be checked
+ * for complete message before it is given to {@link SvnServerParser}.
+ */
+public final class MessageScanner {
+  private static final int SPACE = 0;
+  private static final int NUMBER = 1;
+  private static final int WORD = 2;
+  private static final int STRING = 3;
+
+  private int state = SPACE;
+  private int depth = 0;
+  // Number value or remaining string data length.
+  private long number;
+  // Count of scanned bytes.
+  private long position;
+  // Position after last complete top-level message.
+  private long messageEnd;
+
+  /**
+   * Scan next bytes of stream.
+   */
+  public void scan(@NotNull byte[] data, int offset, int length) {
+    final int end = offset + length;
+    int index = offset;
+    while (index < end) {
+      if (state == STRING) {
+        final int skip = (int) Math.min(number, end - index);
+        index += skip;
+        number -= skip;
+        if (number == 0) {
+          state = SPACE;
+        }
+        continue;
+      }
+      final byte c = data[index++];
+      switch (state) {
+        case NUMBER:
+          if (c >= '0' && c <= '9') {
+            // Too large length can't be received anyway: don't overflow.
+            number = Math.min(number * 10 + (c - '0'), Long.MAX_VALUE / 10);
+            continue;
+          }
+          if (c == ':') {
+            state = number > 0 ? STRING : SPACE;
+            continue;
+          }
+          break;
+        case WORD:
+          if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-') {
+            continue;
+          }
+          break;
+      }
+      state = SPACE;
+      if (c >= '0' && c <= '9') {
+        state = NUMBER;
+        number = c - '0';
+      } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+        state = WORD;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        // Unexpected list end is reported as message end: parser will fail on it.
+        depth = Math.max(depth - 1, 0);
+        if (depth == 0) {
+          messageEnd = position + index - offset;
+        }
+      }
+    }
+    position += length;
+  }
+
+  /**
+   * Count of scanned bytes.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * Stream position after last complete top-level message.
+   */
+  public long getMessageEnd() {
+    return messageEnd;
+  }
+}
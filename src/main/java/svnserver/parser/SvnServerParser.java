@@ -21,22 +21,46 @@ import java.util.Arrays;
  * Интерфейс для чтения токенов из потока.
  * <p>
  * http://svn.apache.org/repos/asf/subversion/trunk/subversion/libsvn_ra_svn/protocol
+ * <p>
+ * Stream data is read through reusable buffer. Words are interned by small per-parser cache,
+ * so command names and well-known values are not allocated on every read.
+ * Methods {@link #readText()}, {@link #readTextItem()} and {@link #readNumber()} don't create token objects.
  *
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
 public class SvnServerParser {
-  private static final int DEFAULT_BUFFER_SIZE = 1024;
+  private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
   // Buffer size limit for out-of-memory prevention.
   private static final int MAX_BUFFER_SIZE = 10 * 1024 * 1024;
-  @NotNull
-  private final byte[] buffer;
+  // Interned words cache size (must be power of two).
+  private static final int WORD_CACHE_SIZE = 256;
+
+  private static final int LIST_BEGIN = 0;
+  private static final int LIST_END = 1;
+  private static final int NUMBER = 2;
+  private static final int WORD = 3;
+  private static final int STRING = 4;
+
   @NotNull
   private final InputStream stream;
-  private int position;
+  @NotNull
+  private final byte[] input;
+  @NotNull
+  private final WordToken[] words = new WordToken[WORD_CACHE_SIZE];
+  @NotNull
+  private byte[] buffer;
+  private int inputOffset;
+  private int inputLimit;
   private int depth = 0;
+  // Last number value or string length (string data is not read yet).
+  private int number;
+  // Last word value.
+  @Nullable
+  private WordToken word;
 
   public SvnServerParser(@NotNull InputStream stream, int bufferSize) {
     this.stream = stream;
+    this.input = new byte[Math.max(1, bufferSize)];
     this.buffer = new byte[Math.max(1, bufferSize)];
   }
 
@@ -44,19 +68,79 @@ public class SvnServerParser {
     this(stream, DEFAULT_BUFFER_SIZE);
   }
 
+  /**
+   * Read word or string value without token object creation.
+   *
+   * @return Text value.
+   */
   @NotNull
   public String readText() throws IOException {
-    return readToken(TextToken.class).getText();
+    final int kind = scan();
+    if (kind == WORD || kind == STRING) {
+      return getText(kind);
+    }
+    throw unexpected(kind, TextToken.class);
   }
 
+  /**
+   * Read word or string list item without token object creation.
+   *
+   * @return Text value or null on list end.
+   */
+  @Nullable
+  public String readTextItem() throws IOException {
+    final int kind = scan();
+    if (kind == LIST_END) {
+      return null;
+    }
+    if (kind == WORD || kind == STRING) {
+      return getText(kind);
+    }
+    throw unexpected(kind, TextToken.class);
+  }
+
+  /**
+   * Read number value without token object creation.
+   *
+   * @return Number value.
+   */
   public int readNumber() throws IOException {
-    return readToken(NumberToken.class).getNumber();
+    final int kind = scan();
+    if (kind == NUMBER) {
+      return number;
+    }
+    throw unexpected(kind, NumberToken.class);
   }
 
   public int getDepth() {
     return depth;
   }
 
+  /**
+   * Skip already buffered separators and check for already received data of the next token.
+   * <p>
+   * This method never reads underlying stream.
+   *
+   * @return True, if parser buffer contains unread data.
+   */
+  public boolean hasBufferedData() {
+    while (inputOffset < inputLimit && isSpace(input[inputOffset])) {
+      inputOffset++;
+    }
+    return inputOffset < inputLimit;
+  }
+
+  /**
+   * Size of already received, but not parsed data.
+   * <p>
+   * This method never reads underlying stream.
+   *
+   * @return Buffered data size in bytes.
+   */
+  public int getBufferedSize() {
+    return inputLimit - inputOffset;
+  }
+
   /**
    * Чтение элемента указанного типа из потока.
    *
@@ -99,13 +183,71 @@ public class SvnServerParser {
    *
    * @return Возвращает элемент из потока. Если элемента нет - возвращает null.
    */
-  @SuppressWarnings("OverlyComplexMethod")
   @NotNull
   public SvnServerToken readToken() throws IOException {
-    position = 0;
+    return createToken(scan());
+  }
+
+  public void skipItems() throws IOException {
+    final int level = depth;
+    while (depth >= level) {
+      if (scan() == STRING) {
+        skipData(number);
+      }
+    }
+  }
+
+  @NotNull
+  private SvnServerToken createToken(int kind) throws IOException {
+    switch (kind) {
+      case LIST_BEGIN:
+        return ListBeginToken.instance;
+      case LIST_END:
+        return ListEndToken.instance;
+      case NUMBER:
+        return new NumberToken(number);
+      case WORD:
+        assert word != null;
+        return word;
+      case STRING:
+        return new StringToken(readData(number));
+      default:
+        throw new IllegalStateException("Unknown token kind: " + kind);
+    }
+  }
+
+  @NotNull
+  private IOException unexpected(int kind, @NotNull Class<? extends SvnServerToken> tokenType) throws IOException {
+    return new IOException("Unexpected token: " + createToken(kind) + " (expected: " + tokenType.getName() + ')');
+  }
+
+  @NotNull
+  private String getText(int kind) throws IOException {
+    if (kind == WORD) {
+      assert word != null;
+      return word.getText();
+    }
+    final int length = number;
+    if (length <= inputLimit - inputOffset) {
+      final String result = new String(input, inputOffset, length, StandardCharsets.UTF_8);
+      inputOffset += length;
+      return result;
+    }
+    return new String(readData(length), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Read next token header.
+   * <p>
+   * For {@link #STRING} token string data must be consumed by caller.
+   *
+   * @return Token kind.
+   */
+  @SuppressWarnings("OverlyComplexMethod")
+  private int scan() throws IOException {
     int read;
     do {
-      read = stream.read();
+      read = read();
       // Конец потока.
       if (read < 0) {
         throw new EOFException();
@@ -113,42 +255,64 @@ public class SvnServerParser {
     } while (isSpace(read));
     if (read == '(') {
       depth++;
-      return ListBeginToken.instance;
+      return LIST_BEGIN;
     }
     if (read == ')') {
       depth--;
       if (depth < 0) {
         throw new IOException("Unexpect end of list token.");
       }
-      return ListEndToken.instance;
+      return LIST_END;
     }
     // Чтение чисел и строк.
     if (isDigit(read)) {
-      int number = read - (int) '0';
+      int value = read - (int) '0';
       while (true) {
-        read = stream.read();
+        read = read();
         if (read == -1)
           throw new EOFException();
         if (!isDigit(read)) {
           break;
         }
-        number = number * 10 + (read - (int) '0');
+        value = value * 10 + (read - (int) '0');
       }
+      number = value;
       if (isSpace(read)) {
-        return new NumberToken(number);
+        return NUMBER;
       }
       if (read == ':') {
-        return readString(number);
+        return STRING;
       }
       throw new IOException("Unexpected character in stream: " + read + " (need ' ', '\\n' or ':')");
     }
     // Обычная строчка.
     if (isAlpha(read)) {
-      return readWord(read);
+      word = readWord(read);
+      return WORD;
     }
     throw new IOException("Unexpected character in stream: " + read + " (need 'a'..'z', 'A'..'Z', '0'..'9', ' ' or '\n')");
   }
 
+  private int read() throws IOException {
+    if (inputOffset == inputLimit && !fill()) {
+      return -1;
+    }
+    return input[inputOffset++] & 0xFF;
+  }
+
+  private boolean fill() throws IOException {
+    int size;
+    do {
+      size = stream.read(input, 0, input.length);
+    } while (size == 0);
+    if (size < 0) {
+      return false;
+    }
+    inputOffset = 0;
+    inputLimit = size;
+    return true;
+  }
+
   private static boolean isSpace(int data) {
     return (data == ' ')
         || (data == '\n');
@@ -159,23 +323,35 @@ public class SvnServerParser {
   }
 
   @NotNull
-  private StringToken readString(int length) throws IOException {
-    int need = length;
-    byte[] localBuffer = buffer;
-    while (need > 0) {
-      // Если буфер мал - увеличиваем.
-      if (localBuffer.length == position) {
-        localBuffer = enlargeBuffer(localBuffer);
-      }
-      // Читаем.
-      final int readed = stream.read(localBuffer, position, Math.min(need, localBuffer.length - position));
+  private byte[] readData(int length) throws IOException {
+    if (length > MAX_BUFFER_SIZE) {
+      throw new IOException("Data is too long. Buffer overflow: " + length);
+    }
+    final byte[] data = new byte[length];
+    int position = Math.min(length, inputLimit - inputOffset);
+    System.arraycopy(input, inputOffset, data, 0, position);
+    inputOffset += position;
+    // Большие строки читаем сразу в результат, минуя буфер.
+    while (position < length) {
+      final int readed = stream.read(data, position, length - position);
       if (readed < 0) {
         throw new EOFException();
       }
-      need -= readed;
       position += readed;
     }
-    return new StringToken(Arrays.copyOf(localBuffer, length));
+    return data;
+  }
+
+  private void skipData(int length) throws IOException {
+    int need = length;
+    while (need > 0) {
+      if (inputOffset == inputLimit && !fill()) {
+        throw new EOFException();
+      }
+      final int skip = Math.min(need, inputLimit - inputOffset);
+      inputOffset += skip;
+      need -= skip;
+    }
   }
 
   private static byte[] enlargeBuffer(byte[] buffer) throws IOException {
@@ -193,38 +369,49 @@ public class SvnServerParser {
   @NotNull
   private WordToken readWord(int first) throws IOException {
     byte[] localBuffer = buffer;
-    localBuffer[position] = (byte) first;
-    position++;
+    int position = 0;
+    int hash = 0;
+    int read = first;
     while (true) {
-      final int read = stream.read();
+      if (localBuffer.length == position) {
+        localBuffer = enlargeBuffer(localBuffer);
+        buffer = localBuffer;
+      }
+      localBuffer[position] = (byte) read;
+      position++;
+      // Same as String.hashCode() for ASCII data.
+      hash = hash * 31 + read;
+
+      read = read();
       if (read < 0) {
         throw new EOFException();
       }
       if (isSpace(read)) {
-        return new WordToken(new String(localBuffer, 0, position, StandardCharsets.US_ASCII));
+        break;
       }
       if (!(isAlpha(read) || isDigit(read) || (read == '-'))) {
         throw new IOException("Unexpected character in stream: " + read + " (need 'a'..'z', 'A'..'Z', '0'..'9' or '-')");
       }
-      if (localBuffer.length == position) {
-        localBuffer = enlargeBuffer(localBuffer);
-      }
-      localBuffer[position] = (byte) read;
-      position++;
     }
+    final int slot = (hash ^ (hash >>> 16)) & (WORD_CACHE_SIZE - 1);
+    final WordToken cached = words[slot];
+    if (cached != null && isSameWord(cached.getText(), hash, localBuffer, position)) {
+      return cached;
+    }
+    final WordToken token = new WordToken(new String(localBuffer, 0, position, StandardCharsets.US_ASCII));
+    words[slot] = token;
+    return token;
   }
 
-  public void skipItems() throws IOException {
-    int depth = 0;
-    while (depth >= 0) {
-      final SvnServerToken token = readToken(SvnServerToken.class);
-      if (ListBeginToken.instance.equals(token)) {
-        depth++;
-      }
-      if (ListEndToken.instance.equals(token)) {
-        depth--;
+  private static boolean isSameWord(@NotNull String text, int hash, @NotNull byte[] data, int length) {
+    if (text.length() != length || text.hashCode() != hash) {
+      return false;
+    }
+    for (int i = 0; i < length; ++i) {
+      if (text.charAt(i) != data[i]) {
+        return false;
       }
     }
+    return true;
   }
 }
-
@@ -0,0 +1,22 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Consumer for file content chunks.
+ * <p>
+ * Chunk data is valid only during consumer call and must not be modified.
+ */
+@FunctionalInterface
+public interface VcsContentConsumer {
+  void accept(@NotNull byte[] data, int offset, int length) throws IOException;
+}
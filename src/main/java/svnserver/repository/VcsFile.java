@@ -11,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNNodeKind;
+import svnserver.StreamHelper;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -59,6 +60,26 @@ public interface VcsFile {
   @NotNull
   InputStream openStream() throws IOException;
 
+  /**
+   * Read file content by chunks.
+   * <p>
+   * Unlike {@link #openStream()} implementation can pass already loaded content without copying.
+   *
+   * @param consumer Content consumer.
+   */
+  default void readContent(@NotNull VcsContentConsumer consumer) throws IOException {
+    final byte[] buffer = new byte[StreamHelper.BUFFER_SIZE];
+    try (InputStream stream = openStream()) {
+      while (true) {
+        final int read = stream.read(buffer);
+        if (read <= 0) {
+          break;
+        }
+        consumer.accept(buffer, 0, read);
+      }
+    }
+  }
+
   boolean isDirectory();
 
   @NotNull
@@ -55,6 +55,15 @@ public interface VcsRepository {
    */
   void updateRevisions() throws IOException, SVNException;
 
+  /**
+   * Repository updates revisions itself on branch change.
+   *
+   * @return False, if {@link #updateRevisions()} should be called before serving client.
+   */
+  default boolean isWatchingRevisions() {
+    return false;
+  }
+
   /**
    * Get revision info.
    *
@@ -112,4 +121,9 @@ public interface VcsRepository {
   @NotNull
   <T> T wrapLockWrite(@NotNull LockWorker<T, LockManagerWrite> work) throws SVNException, IOException;
 
+  /**
+   * Stop background repository activity and save caches.
+   */
+  default void close() throws IOException {
+  }
 }
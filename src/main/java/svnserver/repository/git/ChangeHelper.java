@@ -40,126 +40,105 @@ public final class ChangeHelper {
   }
 
   private static void collectChanges(@NotNull Map<String, GitLogPair> changes, Queue<TreeCompareEntry> queue, @NotNull TreeCompareEntry compareEntry, boolean fullRemoved) throws IOException, SVNException {
-    for (GitLogPair pair : compareEntry) {
-      final GitFile newEntry = pair.getNewEntry();
-      final GitFile oldEntry = pair.getOldEntry();
-      if (newEntry == null && oldEntry == null) {
-        throw new IllegalStateException();
+    final Iterator<GitTreeEntry> oldIter = TreeCompareEntry.getRawEntries(compareEntry.oldTree).iterator();
+    final Iterator<GitTreeEntry> newIter = TreeCompareEntry.getRawEntries(compareEntry.newTree).iterator();
+    GitTreeEntry oldItem = nextItem(oldIter);
+    GitTreeEntry newItem = nextItem(newIter);
+    while ((oldItem != null) || (newItem != null)) {
+      final int compare;
+      if (newItem == null) {
+        compare = -1;
+      } else if (oldItem == null) {
+        compare = 1;
+      } else {
+        compare = oldItem.compareTo(newItem);
       }
-      if (newEntry != null) {
-        if (!newEntry.equals(oldEntry)) {
-          final String fullPath = StringHelper.joinPath(compareEntry.path, newEntry.getFileName());
-          if (newEntry.isDirectory()) {
-            final GitLogPair oldChange = changes.put(fullPath, pair);
-            if (oldChange != null) {
-              changes.put(fullPath, new GitLogPair(oldChange.getOldEntry(), newEntry));
-            }
-            queue.add(new TreeCompareEntry(fullPath, ((oldEntry != null) && oldEntry.isDirectory()) ? oldEntry : null, newEntry));
-          } else if (oldEntry == null || pair.isModified()) {
-            final GitLogPair oldChange = changes.put(fullPath, pair);
-            if (oldChange != null) {
-              changes.put(fullPath, new GitLogPair(oldChange.getOldEntry(), newEntry));
-            }
-          }
-        }
+      final GitTreeEntry oldRaw;
+      final GitTreeEntry newRaw;
+      if (compare <= 0) {
+        oldRaw = oldItem;
+        oldItem = nextItem(oldIter);
       } else {
-        final String fullPath = StringHelper.joinPath(compareEntry.path, oldEntry.getFileName());
-        final GitLogPair oldChange = changes.put(fullPath, pair);
-        if (oldChange != null) {
-          changes.put(fullPath, new GitLogPair(oldEntry, oldChange.getNewEntry()));
-        }
+        oldRaw = null;
       }
-      if (fullRemoved && oldEntry != null && oldEntry.isDirectory()) {
-        final String fullPath = StringHelper.joinPath(compareEntry.path, oldEntry.getFileName());
-        if (newEntry == null || (!newEntry.isDirectory())) {
-          queue.add(new TreeCompareEntry(fullPath, oldEntry, null));
-        }
+      if (compare >= 0) {
+        newRaw = newItem;
+        newItem = nextItem(newIter);
+      } else {
+        newRaw = null;
       }
+      // Same tree entry with same inherited properties: node and whole subtree are not changed.
+      if (compareEntry.sameProperties && oldRaw != null && oldRaw.equals(newRaw)) {
+        continue;
+      }
+      final GitFile oldEntry = oldRaw != null && compareEntry.oldTree != null ? compareEntry.oldTree.createChild(oldRaw) : null;
+      final GitFile newEntry = newRaw != null && compareEntry.newTree != null ? compareEntry.newTree.createChild(newRaw) : null;
+      collectChanges(changes, queue, compareEntry.path, new GitLogPair(oldEntry, newEntry), fullRemoved);
     }
   }
 
-  private static class TreeCompareEntry implements Iterable<GitLogPair> {
-    @NotNull
-    private final String path;
-    @NotNull
-    private final Iterable<GitFile> oldTree;
-    @NotNull
-    private final Iterable<GitFile> newTree;
-
-    private TreeCompareEntry(@NotNull String path, @Nullable GitFile oldTree, @Nullable GitFile newTree) throws IOException, SVNException {
-      this.path = path;
-      this.oldTree = getIterable(oldTree);
-      this.newTree = getIterable(newTree);
+  private static void collectChanges(@NotNull Map<String, GitLogPair> changes, Queue<TreeCompareEntry> queue, @NotNull String path, @NotNull GitLogPair pair, boolean fullRemoved) throws IOException, SVNException {
+    final GitFile newEntry = pair.getNewEntry();
+    final GitFile oldEntry = pair.getOldEntry();
+    if (newEntry == null && oldEntry == null) {
+      throw new IllegalStateException();
     }
-
-    @NotNull
-    private static Iterable<GitFile> getIterable(@Nullable GitFile tree) throws IOException, SVNException {
-      return tree != null ? tree.getEntries() : Collections.emptyList();
+    if (newEntry != null) {
+      if (!newEntry.equals(oldEntry)) {
+        final String fullPath = StringHelper.joinPath(path, newEntry.getFileName());
+        if (newEntry.isDirectory()) {
+          final GitLogPair oldChange = changes.put(fullPath, pair);
+          if (oldChange != null) {
+            changes.put(fullPath, new GitLogPair(oldChange.getOldEntry(), newEntry));
+          }
+          queue.add(new TreeCompareEntry(fullPath, ((oldEntry != null) && oldEntry.isDirectory()) ? oldEntry : null, newEntry));
+        } else if (oldEntry == null || pair.isModified()) {
+          final GitLogPair oldChange = changes.put(fullPath, pair);
+          if (oldChange != null) {
+            changes.put(fullPath, new GitLogPair(oldChange.getOldEntry(), newEntry));
+          }
+        }
+      }
+    } else {
+      final String fullPath = StringHelper.joinPath(path, oldEntry.getFileName());
+      final GitLogPair oldChange = changes.put(fullPath, pair);
+      if (oldChange != null) {
+        changes.put(fullPath, new GitLogPair(oldEntry, oldChange.getNewEntry()));
+      }
     }
-
-    @Override
-    public Iterator<GitLogPair> iterator() {
-      return new LogPairIterator(oldTree, newTree);
+    if (fullRemoved && oldEntry != null && oldEntry.isDirectory()) {
+      final String fullPath = StringHelper.joinPath(path, oldEntry.getFileName());
+      if (newEntry == null || (!newEntry.isDirectory())) {
+        queue.add(new TreeCompareEntry(fullPath, oldEntry, null));
+      }
     }
   }
 
-  private static class LogPairIterator implements Iterator<GitLogPair> {
-    @NotNull
-    private final Iterator<GitFile> oldIter;
+  @Nullable
+  private static GitTreeEntry nextItem(@NotNull Iterator<GitTreeEntry> iter) {
+    return iter.hasNext() ? iter.next() : null;
+  }
+
+  private static class TreeCompareEntry {
     @NotNull
-    private final Iterator<GitFile> newIter;
+    private final String path;
     @Nullable
-    private GitFile oldItem;
+    private final GitFile oldTree;
     @Nullable
-    private GitFile newItem;
-
-    private LogPairIterator(@NotNull Iterable<GitFile> oldTree, @NotNull Iterable<GitFile> newTree) {
-      oldIter = oldTree.iterator();
-      newIter = newTree.iterator();
-      oldItem = nextItem(oldIter);
-      newItem = nextItem(newIter);
-    }
+    private final GitFile newTree;
+    // Both trees have same inherited properties, so equal tree entries have equal properties too.
+    private final boolean sameProperties;
 
-    @Nullable
-    private static GitFile nextItem(@NotNull Iterator<GitFile> iter) {
-      return iter.hasNext() ? iter.next() : null;
-    }
-
-    @Override
-    public boolean hasNext() {
-      return (oldItem != null) || (newItem != null);
+    private TreeCompareEntry(@NotNull String path, @Nullable GitFile oldTree, @Nullable GitFile newTree) {
+      this.path = path;
+      this.oldTree = oldTree;
+      this.newTree = newTree;
+      this.sameProperties = oldTree != null && newTree != null && Arrays.equals(oldTree.getGitProperties(), newTree.getGitProperties());
     }
 
-    @Override
-    public GitLogPair next() {
-      final int compare;
-      if (newItem == null) {
-        compare = -1;
-      } else if (oldItem == null) {
-        compare = 1;
-      } else {
-        final GitTreeEntry oldTreeEntry = oldItem.getTreeEntry();
-        final GitTreeEntry newTreeEntry = newItem.getTreeEntry();
-        if (oldTreeEntry == null || newTreeEntry == null) {
-          throw new IllegalStateException("Tree entry can be null only for revision tree root.");
-        }
-        compare = oldItem.getTreeEntry().compareTo(newItem.getTreeEntry());
-      }
-      final GitFile oldEntry;
-      final GitFile newEntry;
-      if (compare <= 0) {
-        oldEntry = oldItem;
-        oldItem = nextItem(oldIter);
-      } else {
-        oldEntry = null;
-      }
-      if (compare >= 0) {
-        newEntry = newItem;
-        newItem = nextItem(newIter);
-      } else {
-        newEntry = null;
-      }
-      return new GitLogPair(oldEntry, newEntry);
+    @NotNull
+    private static Iterable<GitTreeEntry> getRawEntries(@Nullable GitFile tree) throws IOException {
+      return tree != null ? tree.getRawEntries() : Collections.emptyList();
     }
   }
 }
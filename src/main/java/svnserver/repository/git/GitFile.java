@@ -19,6 +19,7 @@ import svnserver.StreamHelper;
 import svnserver.StringHelper;
 import svnserver.SvnConstants;
 import svnserver.TemporaryOutputStream;
+import svnserver.repository.VcsContentConsumer;
 import svnserver.repository.VcsCopyFrom;
 import svnserver.repository.VcsFile;
 import svnserver.repository.git.prop.GitProperty;
@@ -50,7 +51,7 @@ public class GitFile implements VcsFile {
 
   // Cache
   @Nullable
-  private Iterable<GitTreeEntry> rawEntriesCache;
+  private List<GitTreeEntry> rawEntriesCache;
   @Nullable
   private Iterable<GitFile> treeEntriesCache;
   @Nullable
@@ -73,6 +74,22 @@ public class GitFile implements VcsFile {
     this(repo, new GitTreeEntry(repo.getRepository(), FileMode.TREE, commit.getTree(), ""), "", GitProperty.emptyArray, revisionId);
   }
 
+  private GitFile(@NotNull GitFile source, int revision) {
+    this.repo = source.repo;
+    this.treeEntry = source.treeEntry;
+    this.parentPath = source.parentPath;
+    this.props = source.props;
+    this.revision = revision;
+  }
+
+  /**
+   * Create copy of file for other revision with the same tree. Properties are not resolved again.
+   */
+  @NotNull
+  GitFile withRevision(int revision) {
+    return new GitFile(this, revision);
+  }
+
   @NotNull
   @Override
   public String getFileName() {
@@ -103,6 +120,17 @@ public class GitFile implements VcsFile {
   }
 
   public Map<String, String> getUpstreamProperties() {
+    return getUpstreamProperties(props);
+  }
+
+  @NotNull
+  @Override
+  public Map<String, String> getProperties() throws IOException {
+    return getProperties(repo, props, getFileMode(), getObjectId());
+  }
+
+  @NotNull
+  private static Map<String, String> getUpstreamProperties(@NotNull GitProperty[] props) {
     final Map<String, String> result = new HashMap<>();
     for (GitProperty prop : props) {
       prop.apply(result);
@@ -110,18 +138,19 @@ public class GitFile implements VcsFile {
     return result;
   }
 
+  /**
+   * Get svn properties of node with already resolved git properties.
+   */
   @NotNull
-  @Override
-  public Map<String, String> getProperties() throws IOException {
-    final Map<String, String> props = getUpstreamProperties();
-    final FileMode fileMode = getFileMode();
+  static Map<String, String> getProperties(@NotNull GitRepository repo, @NotNull GitProperty[] gitProps, @NotNull FileMode fileMode, @Nullable GitObject<ObjectId> objectId) throws IOException {
+    final Map<String, String> props = getUpstreamProperties(gitProps);
     if (fileMode.equals(FileMode.SYMLINK)) {
       props.put(SVNProperty.SPECIAL, "*");
     } else {
       if (fileMode.equals(FileMode.EXECUTABLE_FILE)) {
         props.put(SVNProperty.EXECUTABLE, "*");
       }
-      if (fileMode.getObjectType() == Constants.OBJ_BLOB && repo.isObjectBinary(getObjectId())) {
+      if (fileMode.getObjectType() == Constants.OBJ_BLOB && repo.isObjectBinary(objectId)) {
         props.put(SVNProperty.MIME_TYPE, SVNFileUtil.BINARY_MIME_TYPE);
       }
     }
@@ -224,12 +253,51 @@ public class GitFile implements VcsFile {
     return loader.openStream();
   }
 
+  @Override
+  public void readContent(@NotNull VcsContentConsumer consumer) throws IOException {
+    final ObjectLoader loader = getObjectLoader();
+    if (loader == null) {
+      return;
+    }
+    if (isSymlink()) {
+      final byte[] prefix = SvnConstants.LINK_PREFIX.getBytes(StandardCharsets.ISO_8859_1);
+      consumer.accept(prefix, 0, prefix.length);
+    }
+    if (!loader.isLarge()) {
+      // Small object is already loaded to memory: pass it as is.
+      final byte[] data = loader.getCachedBytes();
+      consumer.accept(data, 0, data.length);
+      return;
+    }
+    final byte[] buffer = new byte[StreamHelper.BUFFER_SIZE];
+    try (InputStream stream = loader.openStream()) {
+      while (true) {
+        final int read = stream.read(buffer);
+        if (read <= 0) {
+          break;
+        }
+        consumer.accept(buffer, 0, read);
+      }
+    }
+  }
+
   public boolean isSymlink() {
     return getFileMode() == FileMode.SYMLINK;
   }
 
+  /**
+   * Git properties of this node, including inherited from parent directories.
+   */
   @NotNull
-  private Iterable<GitTreeEntry> getRawEntries() throws IOException {
+  GitProperty[] getGitProperties() {
+    return props;
+  }
+
+  /**
+   * Raw directory entries without property resolution.
+   */
+  @NotNull
+  List<GitTreeEntry> getRawEntries() throws IOException {
     if (rawEntriesCache == null) {
       rawEntriesCache = repo.loadTree(treeEntry);
     }
@@ -252,14 +320,28 @@ public class GitFile implements VcsFile {
 
   @Nullable
   public GitFile getEntry(@NotNull String name) throws IOException, SVNException {
-    for (GitTreeEntry entry : getRawEntries()) {
-      if (entry.getFileName().equals(name)) {
-        return new GitFile(repo, entry, getFullPath(), props, revision);
+    // Tree entries are sorted by git rules: directory name is compared with trailing slash.
+    final List<GitTreeEntry> entries = getRawEntries();
+    if (entries.isEmpty() || treeEntry == null) {
+      return null;
+    }
+    for (FileMode fileMode : new FileMode[]{FileMode.REGULAR_FILE, FileMode.TREE}) {
+      final int index = Collections.binarySearch(entries, new GitTreeEntry(fileMode, treeEntry.getObjectId(), name));
+      if (index >= 0) {
+        return createChild(entries.get(index));
       }
     }
     return null;
   }
 
+  /**
+   * Create directory entry from raw tree entry of this directory.
+   */
+  @NotNull
+  GitFile createChild(@NotNull GitTreeEntry entry) throws IOException, SVNException {
+    return new GitFile(repo, entry, getFullPath(), props, revision);
+  }
+
   @NotNull
   @Override
   public GitRevision getLastChange() throws IOException {
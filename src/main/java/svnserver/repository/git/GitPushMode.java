@@ -8,19 +8,23 @@
 package svnserver.repository.git;
 
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Git push mode.
@@ -29,10 +33,44 @@ import java.nio.charset.StandardCharsets;
  */
 public enum GitPushMode {
   NATIVE {
+    @Override
+    public boolean push(@NotNull Repository repository, @NotNull ObjectId commitId, @NotNull String branch) throws IOException, SVNException {
+      final Ref ref = repository.getRef(branch);
+      final ObjectId oldId = ref != null ? ref.getObjectId() : null;
+      if (oldId != null && !isFastForward(repository, oldId, commitId)) {
+        return false;
+      }
+      final String oldName = (oldId != null ? oldId : ObjectId.zeroId()).name();
+      final String receiveLine = oldName + " " + commitId.name() + " " + branch + "\n";
+      checkHook(repository, receiveLine, "pre-receive");
+      checkHook(repository, null, "update", branch, oldName, commitId.name());
+
+      final RefUpdate refUpdate = repository.updateRef(branch);
+      refUpdate.setNewObjectId(commitId);
+      refUpdate.setExpectedOldObjectId(oldId != null ? oldId : ObjectId.zeroId());
+      final RefUpdate.Result result = refUpdate.update();
+      switch (result) {
+        case REJECTED:
+        case LOCK_FAILURE:
+          return false;
+        case NEW:
+        case FAST_FORWARD:
+          break;
+        default:
+          log.error("Unexpected push error: {}", result);
+          throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, result.name()));
+      }
+
+      // Post hooks can't reject already updated reference, so only report their failures.
+      runPostHook(repository, receiveLine, "post-receive");
+      runPostHook(repository, null, "post-update", branch);
+      return true;
+    }
+  },
+  CONSOLE {
     @Override
     public boolean push(@NotNull Repository repository, @NotNull ObjectId commitId, @NotNull String branch) throws IOException, SVNException {
       try {
-        repository.getDirectory();
         final ProcessBuilder processBuilder = new ProcessBuilder("git", "push", "--porcelain", "--quiet", ".", commitId.name() + ":" + branch)
             .directory(repository.getDirectory())
             .redirectErrorStream(true);
@@ -79,7 +117,6 @@ public enum GitPushMode {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, e));
       }
     }
-
   },
   SIMPLE {
     @Override
@@ -108,4 +145,93 @@ public enum GitPushMode {
 
   public abstract boolean push(@NotNull Repository repository, @NotNull ObjectId commitId, @NotNull String branch) throws SVNException, IOException;
 
+  private static boolean isFastForward(@NotNull Repository repository, @NotNull ObjectId oldId, @NotNull ObjectId newId) throws IOException {
+    final RevWalk revWalk = new RevWalk(repository);
+    try {
+      return revWalk.isMergedInto(revWalk.parseCommit(oldId), revWalk.parseCommit(newId));
+    } finally {
+      revWalk.release();
+    }
+  }
+
+  private static void checkHook(@NotNull Repository repository, @Nullable String input, @NotNull String hook, @NotNull String... args) throws IOException, SVNException {
+    final HookResult result = runHook(repository, input, hook, args);
+    if (result != null && result.exitCode != 0) {
+      log.warn("Push rejected by hook:\n{}", result.output);
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.REPOS_HOOK_FAILURE, "Commit blocked by hook with output:\n" + result.output));
+    }
+  }
+
+  private static void runPostHook(@NotNull Repository repository, @Nullable String input, @NotNull String hook, @NotNull String... args) {
+    try {
+      final HookResult result = runHook(repository, input, hook, args);
+      if (result != null && result.exitCode != 0) {
+        log.warn("Hook {} failed with exit code {}:\n{}", hook, result.exitCode, result.output);
+      }
+    } catch (IOException | SVNException e) {
+      log.warn("Hook " + hook + " failed", e);
+    }
+  }
+
+  /**
+   * Run repository hook in the same way as git receive-pack does.
+   *
+   * @return Hook result or null, if hook is not installed.
+   */
+  @Nullable
+  private static HookResult runHook(@NotNull Repository repository, @Nullable String input, @NotNull String hook, @NotNull String... args) throws IOException, SVNException {
+    final File gitDir = repository.getDirectory();
+    if (gitDir == null) {
+      return null;
+    }
+    final File script = new File(new File(gitDir, "hooks"), hook);
+    if (!script.isFile() || !script.canExecute()) {
+      return null;
+    }
+    final List<String> command = new ArrayList<>();
+    command.add(script.getAbsolutePath());
+    Collections.addAll(command, args);
+    final ProcessBuilder processBuilder = new ProcessBuilder(command)
+        .directory(gitDir)
+        .redirectErrorStream(true);
+    processBuilder.environment().put("GIT_DIR", ".");
+    processBuilder.environment().put("LANG", "en_US.utf8");
+    final Process process = processBuilder.start();
+    try (OutputStream stdin = process.getOutputStream()) {
+      if (input != null) {
+        stdin.write(input.getBytes(StandardCharsets.UTF_8));
+      }
+    } catch (IOException ignored) {
+      // Hook may exit without reading stdin.
+    }
+    final StringBuilder output = new StringBuilder();
+    try (final BufferedReader stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      while (true) {
+        final String line = stdout.readLine();
+        if (line == null) {
+          break;
+        }
+        if (output.length() > 0) output.append('\n');
+        output.append(line);
+      }
+    }
+    try {
+      return new HookResult(process.waitFor(), output.toString());
+    } catch (InterruptedException e) {
+      process.destroy();
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_WRITE_ERROR, e));
+    }
+  }
+
+  private static final class HookResult {
+    private final int exitCode;
+    @NotNull
+    private final String output;
+
+    private HookResult(int exitCode, @NotNull String output) {
+      this.exitCode = exitCode;
+      this.output = output;
+    }
+  }
+
 }
@@ -7,6 +7,9 @@
  */
 package svnserver.repository.git;
 
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.RenameDetector;
 import org.eclipse.jgit.lib.*;
@@ -14,8 +17,8 @@ import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.util.IntList;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.mapdb.DB;
@@ -26,6 +29,7 @@ import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNProperty;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import svnserver.BoundedCache;
 import svnserver.StringHelper;
 import svnserver.WikiConstants;
 import svnserver.auth.User;
@@ -44,7 +48,15 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiFunction;
 
@@ -55,8 +67,21 @@ import java.util.function.BiFunction;
  */
 public class GitRepository implements VcsRepository {
   private static final int REPORT_DELAY = 2500;
+  // Maximum count of revisions with calculating changes on cache creation.
+  private static final int CACHE_WINDOW_SIZE = Runtime.getRuntime().availableProcessors() * 4;
+  // Minimum count of revisions, not included in index snapshot, for snapshot update.
+  private static final int INDEX_SNAPSHOT_DELTA = 1000;
   private static final int MAX_PROPERTY_ERRROS = 50;
-  private static final int MARK_NO_FILE = -1;
+  // Maximum count of attempts to rebase commit on concurrently moved branch.
+  private static final int MAX_REBASE_ATTEMPTS = 10;
+  // Maximum count of git commits with message, kept in memory for revision info.
+  private static final int COMMIT_CACHE_SIZE = 4096;
+  // Maximum count of revision rename maps, kept in memory.
+  private static final int RENAMES_CACHE_SIZE = 4096;
+  // Maximum count of resolved paths, kept in memory.
+  private static final int PATH_CACHE_SIZE = 100000;
+  public static final int DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE = 100000;
+  public static final int DEFAULT_FILE_PROPERTY_CACHE_SIZE = 10000;
 
   @NotNull
   private static final Logger log = LoggerFactory.getLogger(GitRepository.class);
@@ -70,20 +95,35 @@ public class GitRepository implements VcsRepository {
   private final List<Repository> linkedRepositories;
   @NotNull
   private final GitPushMode pushMode;
+  // Published revision list. Readers use it without locks.
   @NotNull
-  private final List<GitRevision> revisions = new ArrayList<>();
+  private volatile RevisionList revisions = RevisionList.EMPTY;
+  // Revision indexes can contain not published yet revisions.
   @NotNull
-  private final TreeMap<Long, GitRevision> revisionByDate = new TreeMap<>();
+  private final ConcurrentNavigableMap<Long, GitRevision> revisionByDate = new ConcurrentSkipListMap<>();
   @NotNull
-  private final TreeMap<ObjectId, GitRevision> revisionByHash = new TreeMap<>();
+  private final Map<ObjectId, GitRevision> revisionByHash = new ConcurrentHashMap<>();
   @NotNull
-  private final Map<String, IntList> lastUpdates = new ConcurrentHashMap<>();
+  private LastChangeIndex lastUpdates = new LastChangeIndex();
+  // Changed paths of revisions, published after last lock validation (null until first full validation).
+  @Nullable
+  private Set<String> lockChangedPaths;
+  // Lock for last updates index and lock changed paths.
   @NotNull
   private final ReadWriteLock lock = new ReentrantReadWriteLock();
-  // Lock for prevent concurrent pushes.
+  // Lock for prevent concurrent revision loading and caching.
+  @NotNull
+  private final ReentrantLock indexLock = new ReentrantLock();
+  // Lock for prevent concurrent pushes. Guards only reference update: commits are prepared outside of it.
   @NotNull
   private final Object pushLock = new Object();
   @NotNull
+  private final AtomicLong pushCount = new AtomicLong();
+  @NotNull
+  private final AtomicLong pushWaitTime = new AtomicLong();
+  @NotNull
+  private final AtomicLong pushRebaseCount = new AtomicLong();
+  @NotNull
   private final String uuid;
   @NotNull
   private final String gitBranch;
@@ -96,21 +136,48 @@ public class GitRepository implements VcsRepository {
   @NotNull
   private final Map<String, Boolean> binaryCache;
   @NotNull
-  private final Map<ObjectId, GitProperty[]> directoryPropertyCache = new ConcurrentHashMap<>();
+  private final Map<String, byte[]> indexCache;
+  // Changed paths of revisions for log requests (cache commit to serialized RevisionChanges).
+  @NotNull
+  private final Map<String, byte[]> changesCache;
+  // Revision count in stored index snapshot.
+  private int snapshotRevisions;
   @NotNull
-  private final Map<ObjectId, GitProperty> filePropertyCache = new ConcurrentHashMap<>();
+  private final BoundedCache<ObjectId, RevCommit> commitCache = new BoundedCache<>(COMMIT_CACHE_SIZE);
+  @NotNull
+  private final BoundedCache<ObjectId, Map<String, VcsCopyFrom>> renamesCache = new BoundedCache<>(RENAMES_CACHE_SIZE);
+  @NotNull
+  private final BoundedCache<PathKey, GitFile> pathCache = new BoundedCache<>(PATH_CACHE_SIZE);
+  @NotNull
+  private final BoundedCache<ObjectId, GitProperty[]> directoryPropertyCache;
+  @NotNull
+  private final BoundedCache<ObjectId, GitProperty> filePropertyCache;
   private final boolean renameDetection;
+  // Initial revision indexing is in progress in background.
+  private volatile boolean indexing;
+  // Branch was changed during initial indexing: revisions should be refreshed after it.
+  private volatile boolean indexingDirty;
+  // Watcher for external branch changes (null, if branch reference can't be watched).
+  @Nullable
+  private final RefWatcher refWatcher;
 
   public GitRepository(@NotNull Repository repository,
                        @NotNull List<Repository> linked,
                        @NotNull GitPushMode pushMode,
                        @NotNull String branch,
                        boolean renameDetection,
+                       boolean backgroundIndexing,
+                       int directoryPropertyCacheSize,
+                       int filePropertyCacheSize,
                        @NotNull LockManagerFactory lockManagerFactory,
                        @NotNull DB cacheDb) throws IOException, SVNException {
     this.cacheDb = cacheDb;
+    this.directoryPropertyCache = new BoundedCache<>(directoryPropertyCacheSize);
+    this.filePropertyCache = new BoundedCache<>(filePropertyCacheSize);
     this.md5Cache = cacheDb.getHashMap("cache.md5");
     this.binaryCache = cacheDb.getHashMap("cache.binary");
+    this.indexCache = cacheDb.getHashMap("cache.index");
+    this.changesCache = cacheDb.getHashMap("cache.changes");
     this.repository = repository;
     this.pushMode = pushMode;
     this.renameDetection = renameDetection;
@@ -119,12 +186,187 @@ public class GitRepository implements VcsRepository {
 
     this.svnBranch = LayoutHelper.initRepository(repository, branch).getName();
     this.gitBranch = Constants.R_HEADS + branch;
-    loadRevisions();
-    cacheRevisions();
-
-    updateRevisions();
+    loadIndex();
     this.uuid = UUID.nameUUIDFromBytes((getRepositoryId() + "\0" + gitBranch).getBytes(StandardCharsets.UTF_8)).toString();
-    log.info("Repository ready (branch: {})", gitBranch);
+    if (backgroundIndexing) {
+      indexing = true;
+      final Thread thread = new Thread(this::indexRevisions, "Indexing " + gitBranch);
+      thread.setDaemon(true);
+      thread.start();
+    } else {
+      refreshRevisions(true);
+      log.info("Repository ready (branch: {})", gitBranch);
+    }
+    this.refWatcher = RefWatcher.create(repository.getDirectory(), gitBranch, this::onRefChange);
+    // Branch could be changed before watcher start.
+    updateRevisions();
+  }
+
+  /**
+   * Update revisions after external branch change.
+   */
+  private void onRefChange() {
+    try {
+      log.debug("Branch reference changed: {}", gitBranch);
+      updateRevisions();
+    } catch (IOException | SVNException e) {
+      log.error("Can't update revisions (branch: " + gitBranch + ")", e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (refWatcher != null) {
+      refWatcher.close();
+    }
+    cacheDb.commit();
+  }
+
+  /**
+   * Initial revision indexing in background.
+   * <p>
+   * Clients are served with already indexed revisions until indexing is completed.
+   */
+  private void indexRevisions() {
+    try {
+      log.info("Repository indexing started (branch: {})", gitBranch);
+      refreshRevisions(true);
+      log.info("Repository ready (branch: {})", gitBranch);
+    } catch (IOException | SVNException | RuntimeException e) {
+      log.error("Repository indexing failed (branch: " + gitBranch + ")", e);
+    } finally {
+      indexing = false;
+    }
+    if (indexingDirty) {
+      indexingDirty = false;
+      onRefChange();
+    }
+  }
+
+  /**
+   * Is initial revision indexing in progress.
+   *
+   * @return True, if latest revision may be not indexed yet.
+   */
+  public boolean isIndexing() {
+    return indexing;
+  }
+
+  @Override
+  public boolean isWatchingRevisions() {
+    return refWatcher != null;
+  }
+
+  /**
+   * Load revision index snapshot or, if snapshot is absent, first revision from cache.
+   * <p>
+   * Revisions after snapshot (or first revision) are loaded by {@link #loadRevisions()}.
+   */
+  private void loadIndex() throws IOException, SVNException {
+    indexLock.lock();
+    try {
+      final RevWalk revWalk = new RevWalk(repository);
+      final List<RevCommit> cacheCommits = new ArrayList<>();
+      RevCommit commit = revWalk.parseCommit(repository.getRef(svnBranch).getObjectId());
+      cacheCommits.add(commit);
+      while (commit.getParentCount() > 0) {
+        commit = revWalk.parseCommit(commit.getParent(0));
+        cacheCommits.add(commit);
+      }
+      Collections.reverse(cacheCommits);
+      if (!loadIndexSnapshot(cacheCommits)) {
+        loadRevisionInfo(cacheCommits.get(0));
+      }
+    } finally {
+      indexLock.unlock();
+    }
+  }
+
+  private boolean loadIndexSnapshot(@NotNull List<RevCommit> cacheCommits) throws IOException {
+    final byte[] data = indexCache.get(getIndexSnapshotKey(cacheCommits.get(0)));
+    if (data == null) {
+      return false;
+    }
+    final IndexSnapshot snapshot;
+    try {
+      snapshot = IndexSnapshot.load(data);
+    } catch (IOException e) {
+      log.warn("Can't load revision index snapshot, ignore it", e);
+      return false;
+    }
+    if (snapshot == null) {
+      log.info("Revision index snapshot has unsupported format, ignore it");
+      return false;
+    }
+    final List<IndexSnapshot.Entry> entries = snapshot.getEntries();
+    // Cache commits can be recreated after snapshot creation.
+    if (entries.isEmpty() || entries.size() > cacheCommits.size()) {
+      return false;
+    }
+    for (int i = 0; i < entries.size(); ++i) {
+      if (!entries.get(i).getCacheCommit().equals(cacheCommits.get(i))) {
+        log.info("Revision index snapshot doesn't match revision cache, ignore it");
+        return false;
+      }
+    }
+    final long beginTime = System.currentTimeMillis();
+    lock.writeLock().lock();
+    try {
+      lastUpdates = snapshot.getLastUpdates();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    for (int revisionId = 0; revisionId < entries.size(); ++revisionId) {
+      final IndexSnapshot.Entry entry = entries.get(revisionId);
+      addRevision(new GitRevision(this, entry.getCacheCommit(), revisionId, entry.getGitCommit(), entry.getCommitTime()));
+    }
+    snapshotRevisions = entries.size();
+    log.info("Revision index snapshot loaded: {} revisions, {} ms", entries.size(), System.currentTimeMillis() - beginTime);
+    return true;
+  }
+
+  /**
+   * Save revision index snapshot, if there is enough revisions after previous snapshot.
+   */
+  private void updateIndexSnapshot() throws IOException {
+    indexLock.lock();
+    try {
+      if (revisions.size() - snapshotRevisions >= INDEX_SNAPSHOT_DELTA) {
+        saveIndexSnapshot();
+      }
+    } finally {
+      indexLock.unlock();
+    }
+  }
+
+  void saveIndexSnapshot() throws IOException {
+    indexLock.lock();
+    try {
+      final RevisionList revisions = this.revisions;
+      final List<IndexSnapshot.Entry> entries = new ArrayList<>(revisions.size());
+      for (int i = 0; i < revisions.size(); ++i) {
+        final GitRevision revision = revisions.get(i);
+        entries.add(new IndexSnapshot.Entry(revision.getCacheCommit(), revision.getGitCommitId(), (int) TimeUnit.MILLISECONDS.toSeconds(revision.getDate())));
+      }
+      final byte[] data;
+      lock.readLock().lock();
+      try {
+        data = new IndexSnapshot(entries, lastUpdates).save();
+      } finally {
+        lock.readLock().unlock();
+      }
+      indexCache.put(getIndexSnapshotKey(revisions.get(0).getCacheCommit()), data);
+      snapshotRevisions = revisions.size();
+      log.info("Revision index snapshot saved: {} revisions", snapshotRevisions);
+    } finally {
+      indexLock.unlock();
+    }
+  }
+
+  @NotNull
+  private static String getIndexSnapshotKey(@NotNull ObjectId firstCacheCommit) {
+    // First cache commit is unique for every repository and branch.
+    return firstCacheCommit.name();
   }
 
   @NotNull
@@ -140,25 +382,18 @@ public class GitRepository implements VcsRepository {
    */
   public boolean loadRevisions() throws IOException, SVNException {
     // Fast check.
-    lock.readLock().lock();
-    try {
-      final int lastRevision = revisions.size() - 1;
-      final ObjectId lastCommitId;
-      if (lastRevision >= 0) {
-        lastCommitId = revisions.get(lastRevision).getGitNewCommit();
-        final Ref head = repository.getRef(svnBranch);
-        if (head.getObjectId().equals(lastCommitId)) {
-          return false;
-        }
+    final GitRevision lastRevision = revisions.last();
+    if (lastRevision != null) {
+      final Ref head = repository.getRef(svnBranch);
+      if (head.getObjectId().equals(lastRevision.getCacheCommit())) {
+        return false;
       }
-    } finally {
-      lock.readLock().unlock();
     }
     // Real loading.
-    lock.writeLock().lock();
+    indexLock.lock();
     try {
-      final int lastRevision = revisions.size() - 1;
-      final ObjectId lastCommitId = lastRevision < 0 ? null : revisions.get(lastRevision).getCacheCommit();
+      final GitRevision lastLoaded = revisions.last();
+      final ObjectId lastCommitId = lastLoaded == null ? null : lastLoaded.getCacheCommit();
       final Ref head = repository.getRef(svnBranch);
       final List<RevCommit> newRevs = new ArrayList<>();
       final RevWalk revWalk = new RevWalk(repository);
@@ -190,10 +425,10 @@ public class GitRepository implements VcsRepository {
         }
       }
       final long endTime = System.currentTimeMillis();
-      log.info("Cached revision loaded: {} ms", endTime - beginTime);
+      log.info("Cached revision loaded: {} ms, paths indexed: {}", endTime - beginTime, lastUpdates.getPathCount());
       return true;
     } finally {
-      lock.writeLock().unlock();
+      indexLock.unlock();
     }
   }
 
@@ -222,22 +457,16 @@ public class GitRepository implements VcsRepository {
    */
   public boolean cacheRevisions() throws IOException, SVNException {
     // Fast check.
-    lock.readLock().lock();
-    try {
-      final int lastRevision = revisions.size() - 1;
-      if (lastRevision >= 0) {
-        final ObjectId lastCommitId = revisions.get(lastRevision).getGitNewCommit();
-        final Ref master = repository.getRef(gitBranch);
-        if ((master == null) || (master.getObjectId().equals(lastCommitId))) {
-          return false;
-        }
+    final GitRevision lastRevision = revisions.last();
+    if (lastRevision != null) {
+      final Ref master = repository.getRef(gitBranch);
+      if ((master == null) || (master.getObjectId().equals(lastRevision.getGitCommitId()))) {
+        return false;
       }
-    } finally {
-      lock.readLock().unlock();
     }
     // Real update.
     final ObjectInserter inserter = repository.newObjectInserter();
-    lock.writeLock().lock();
+    indexLock.lock();
     try {
       final Ref master = repository.getRef(gitBranch);
       final List<RevCommit> newRevs = new ArrayList<>();
@@ -258,25 +487,43 @@ public class GitRepository implements VcsRepository {
         long reportTime = beginTime;
         log.info("Loading revision changes: {} revision", newRevs.size());
         int revisionId = revisions.size();
-        ObjectId cacheId = revisions.get(revisions.size() - 1).getCacheCommit();
-        for (int i = newRevs.size() - 1; i >= 0; i--) {
-          final RevCommit revCommit = newRevs.get(i);
-          final CacheRevision cacheRevision = createCache(revCommit.getParentCount() > 0 ? revWalk.parseCommit(revCommit.getParent(0)) : null, revCommit, Collections.emptyMap(), revisionId);
-          cacheId = LayoutHelper.createCacheCommit(inserter, cacheId, revCommit, cacheRevision);
-          inserter.flush();
-
-          processed++;
-          long currentTime = System.currentTimeMillis();
-          if (currentTime - reportTime > REPORT_DELAY) {
-            log.info("  processed revision: {} ({} rev/sec)", newRevs.size() - i, 1000.0f * processed / (currentTime - reportTime));
-            reportTime = currentTime;
-            processed = 0;
-
-            final RefUpdate refUpdate = repository.updateRef(svnBranch);
-            refUpdate.setNewObjectId(cacheId);
-            refUpdate.update();
+        ObjectId cacheId = revisions.get(revisionId - 1).getCacheCommit();
+        // Revision changes are calculated in parallel, but cache commits are created strictly in revision order.
+        final Deque<Future<CacheRevision>> pending = new ArrayDeque<>();
+        int submitted = newRevs.size() - 1;
+        try {
+          for (int i = newRevs.size() - 1; i >= 0; i--) {
+            while (submitted >= 0 && pending.size() < CACHE_WINDOW_SIZE) {
+              final RevCommit revCommit = newRevs.get(submitted);
+              final RevCommit oldCommit = revCommit.getParentCount() > 0 ? revWalk.parseCommit(revCommit.getParent(0)) : null;
+              final int cacheRevisionId = revisionId + (i - submitted);
+              pending.add(ForkJoinPool.commonPool().submit(() -> createCache(oldCommit, revCommit, Collections.emptyMap(), cacheRevisionId)));
+              submitted--;
+            }
+            final RevCommit revCommit = newRevs.get(i);
+            final CacheRevision cacheRevision = waitCache(pending.remove());
+            cacheId = LayoutHelper.createCacheCommit(inserter, cacheId, revCommit, cacheRevision);
+            inserter.flush();
+
+            processed++;
+            long currentTime = System.currentTimeMillis();
+            if (currentTime - reportTime > REPORT_DELAY) {
+              log.info("  processed revision: {} ({} rev/sec)", newRevs.size() - i, 1000.0f * processed / (currentTime - reportTime));
+              reportTime = currentTime;
+              processed = 0;
+
+              final RefUpdate refUpdate = repository.updateRef(svnBranch);
+              refUpdate.setNewObjectId(cacheId);
+              refUpdate.update();
+              // Make already cached revisions available for clients.
+              loadRevisions();
+            }
+            revisionId++;
+          }
+        } finally {
+          for (Future<CacheRevision> future : pending) {
+            future.cancel(false);
           }
-          revisionId++;
         }
         final long endTime = System.currentTimeMillis();
         log.info("Revision changes loaded: {} ms", endTime - beginTime);
@@ -287,7 +534,32 @@ public class GitRepository implements VcsRepository {
       }
       return !newRevs.isEmpty();
     } finally {
-      lock.writeLock().unlock();
+      indexLock.unlock();
+    }
+  }
+
+  @NotNull
+  private static CacheRevision waitCache(@NotNull Future<CacheRevision> future) throws IOException, SVNException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Revision cache creation interrupted", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof SVNException) {
+        throw (SVNException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
     }
   }
 
@@ -309,19 +581,64 @@ public class GitRepository implements VcsRepository {
 
   @Override
   public void updateRevisions() throws IOException, SVNException {
+    if (indexing) {
+      // Initial indexing can miss this change: it will be rechecked after indexing.
+      indexingDirty = true;
+      if (indexing) {
+        return;
+      }
+    }
+    refreshRevisions(false);
+  }
+
+  /**
+   * Load and cache new revisions.
+   *
+   * @param force Validate locks and save index even if there is no new revisions.
+   */
+  private void refreshRevisions(boolean force) throws IOException, SVNException {
+    boolean changed = false;
     while (true) {
-      loadRevisions();
+      changed |= loadRevisions();
       if (!cacheRevisions()) {
         break;
       }
+      changed = true;
+    }
+    if (!changed && !force) {
+      return;
     }
+    final Set<String> changedPaths = takeLockChangedPaths(force);
     wrapLockWrite((lockManager) -> {
-      lockManager.validateLocks();
+      if (changedPaths == null) {
+        lockManager.validateLocks();
+      } else if (!changedPaths.isEmpty()) {
+        lockManager.validateLocks(changedPaths);
+      }
       return Boolean.TRUE;
     });
+    updateIndexSnapshot();
     cacheDb.commit();
   }
 
+  /**
+   * Take changed paths for lock validation and start collecting new ones.
+   *
+   * @param full Full validation is required.
+   * @return Changed paths of revisions, published after previous validation or null for full validation.
+   */
+  @Nullable
+  private Set<String> takeLockChangedPaths(boolean full) {
+    lock.writeLock().lock();
+    try {
+      final Set<String> result = full ? null : lockChangedPaths;
+      lockChangedPaths = new HashSet<>();
+      return result;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
   private boolean isTreeEmpty(RevTree tree) throws IOException {
     return new CanonicalTreeParser(GitRepository.emptyBytes, repository.newObjectReader(), tree).eof();
   }
@@ -330,32 +647,146 @@ public class GitRepository implements VcsRepository {
     final RevWalk revWalk = new RevWalk(repository.newObjectReader());
     final CacheRevision cacheRevision = LayoutHelper.loadCacheRevision(revWalk.getObjectReader(), commit);
     final int revisionId = cacheRevision.getRevisionId();
+    final ObjectId svnCommit = cacheRevision.getGitCommitId() != null ? cacheRevision.getGitCommitId().copy() : null;
+    // Copy commit id: RevCommit keeps commit body.
+    final GitRevision revision = new GitRevision(this, commit.copy(), revisionId, svnCommit, commit.getCommitTime());
+    lock.writeLock().lock();
+    try {
+      for (Map.Entry<String, CacheChange> entry : cacheRevision.getFileChange().entrySet()) {
+        lastUpdates.add(entry.getKey(), revisionId, entry.getValue().getNewFile() == null);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    addRevision(revision);
+    // Paths are collected after revision publishing: validation should see revision, which changes them.
+    lock.writeLock().lock();
+    try {
+      if (lockChangedPaths != null) {
+        lockChangedPaths.addAll(cacheRevision.getFileChange().keySet());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @NotNull
+  private static Map<String, VcsCopyFrom> createCopyFroms(int revisionId, @NotNull Map<String, String> renames) {
+    if (renames.isEmpty()) {
+      return Collections.emptyMap();
+    }
     final Map<String, VcsCopyFrom> copyFroms = new HashMap<>();
-    for (Map.Entry<String, String> entry : cacheRevision.getRenames().entrySet()) {
+    for (Map.Entry<String, String> entry : renames.entrySet()) {
       copyFroms.put(entry.getKey(), new VcsCopyFrom(revisionId - 1, entry.getValue()));
     }
-    final RevCommit oldCommit = revisions.isEmpty() ? null : revisions.get(revisions.size() - 1).getGitNewCommit();
-    final RevCommit svnCommit = cacheRevision.getGitCommitId() != null ? revWalk.parseCommit(cacheRevision.getGitCommitId()) : null;
-    for (Map.Entry<String, CacheChange> entry : cacheRevision.getFileChange().entrySet()) {
-      lastUpdates.compute(entry.getKey(), (key, list) -> {
-        final IntList result = list == null ? new IntList() : list;
-        result.add(revisionId);
-        if (entry.getValue().getNewFile() == null) {
-          result.add(MARK_NO_FILE);
+    return copyFroms;
+  }
+
+  /**
+   * Load git commit with message.
+   *
+   * @param commitId Commit id.
+   * @return Commit.
+   */
+  @NotNull
+  RevCommit loadCommit(@NotNull ObjectId commitId) throws IOException {
+    return commitCache.get(commitId, id -> new RevWalk(repository).parseCommit(id));
+  }
+
+  /**
+   * Load renames of revision from revision cache.
+   *
+   * @param revision Revision.
+   * @return Renames (new path to copy source).
+   */
+  @NotNull
+  Map<String, VcsCopyFrom> loadRenames(@NotNull GitRevision revision) throws IOException {
+    return renamesCache.get(revision.getCacheCommit(), id -> {
+      final RevWalk revWalk = new RevWalk(repository);
+      final CacheRevision cacheRevision = LayoutHelper.loadCacheRevision(revWalk.getObjectReader(), revWalk.parseCommit(id));
+      return createCopyFroms(revision.getId(), cacheRevision.getRenames());
+    });
+  }
+
+  /**
+   * Resolve file by path in commit tree.
+   * <p>
+   * Resolved files are cached by root tree id and path, so parent directories are resolved only once.
+   *
+   * @param commit   Commit.
+   * @param path     Normalized path without leading and trailing slashes (empty string for root).
+   * @param revision Revision number of returned file.
+   * @return File or null, if path doesn't exist.
+   */
+  @Nullable
+  GitFile resolveFile(@NotNull RevCommit commit, @NotNull String path, int revision) throws IOException, SVNException {
+    final PathKey key = new PathKey(commit.getTree(), path);
+    GitFile file = pathCache.getIfPresent(key);
+    if (file == null) {
+      if (path.isEmpty()) {
+        file = new GitFile(this, commit, revision);
+      } else {
+        final int index = path.lastIndexOf('/');
+        final GitFile parent = resolveFile(commit, index < 0 ? "" : path.substring(0, index), revision);
+        if (parent == null) {
+          return null;
         }
-        return result;
-      });
+        file = parent.getEntry(path.substring(index + 1));
+        if (file == null) {
+          return null;
+        }
+      }
+      pathCache.put(key, file.withRevision(revision));
+    }
+    // Return copy: cached instance must not keep loaded directory entries.
+    return file.withRevision(revision);
+  }
+
+  /**
+   * Path resolution cache (root tree id and path to resolved file).
+   *
+   * @return Cache, for statistics only.
+   */
+  @NotNull
+  public BoundedCache<?, GitFile> getPathCache() {
+    return pathCache;
+  }
+
+  /**
+   * Load changed paths of revision. Changes are computed by tree comparison only once and persisted in cache.
+   *
+   * @param revision Revision.
+   * @return Revision changes.
+   */
+  @NotNull
+  RevisionChanges loadChanges(@NotNull GitRevision revision) throws IOException, SVNException {
+    final String key = revision.getCacheCommit().name();
+    final byte[] data = changesCache.get(key);
+    if (data != null) {
+      final RevisionChanges changes = RevisionChanges.load(data);
+      if (changes != null) {
+        return changes;
+      }
     }
-    final GitRevision revision = new GitRevision(this, commit.getId(), cacheRevision.getRevisionId(), copyFroms, oldCommit, svnCommit, commit.getCommitTime());
-    if (cacheRevision.getRevisionId() > 0) {
+    final RevisionChanges changes = RevisionChanges.create(revision.collectChanges());
+    changesCache.put(key, changes.save());
+    return changes;
+  }
+
+  /**
+   * Publish loaded revision. Must be called with index lock.
+   */
+  private void addRevision(@NotNull GitRevision revision) {
+    if (revision.getId() > 0) {
       if (revisionByDate.isEmpty() || revisionByDate.lastKey() <= revision.getDate()) {
         revisionByDate.put(revision.getDate(), revision);
       }
     }
+    final ObjectId svnCommit = revision.getGitCommitId();
     if (svnCommit != null) {
-      revisionByHash.put(svnCommit.getId(), revision);
+      revisionByHash.put(svnCommit, revision);
     }
-    revisions.add(revision);
+    revisions = revisions.append(revision);
   }
 
   @NotNull
@@ -390,7 +821,7 @@ public class GitRepository implements VcsRepository {
     if (treeEntry.getFileMode().getObjectType() == Constants.OBJ_BLOB)
       return GitProperty.emptyArray;
 
-    GitProperty[] props = directoryPropertyCache.get(treeEntry.getObjectId().getObject());
+    GitProperty[] props = directoryPropertyCache.getIfPresent(treeEntry.getObjectId().getObject());
     if (props == null) {
       final List<GitProperty> propList = new ArrayList<>();
       for (GitTreeEntry entry : entryProvider.get()) {
@@ -420,7 +851,7 @@ public class GitRepository implements VcsRepository {
 
   @Nullable
   private GitProperty cachedParseGitProperty(GitObject<ObjectId> objectId, GitPropertyFactory factory) throws IOException, SVNException {
-    GitProperty property = filePropertyCache.get(objectId.getObject());
+    GitProperty property = filePropertyCache.getIfPresent(objectId.getObject());
     if (property == null) {
       property = factory.create(loadContent(objectId));
       filePropertyCache.put(objectId.getObject(), property);
@@ -428,30 +859,67 @@ public class GitRepository implements VcsRepository {
     return property;
   }
 
+  /**
+   * Directory property cache (tree id to directory properties).
+   *
+   * @return Cache, for statistics only.
+   */
+  @NotNull
+  public BoundedCache<ObjectId, GitProperty[]> getDirectoryPropertyCache() {
+    return directoryPropertyCache;
+  }
+
+  /**
+   * File property cache (property file blob id to parsed property).
+   *
+   * @return Cache, for statistics only.
+   */
+  @NotNull
+  public BoundedCache<ObjectId, GitProperty> getFilePropertyCache() {
+    return filePropertyCache;
+  }
+
+  /**
+   * Count of push attempts.
+   */
+  public long getPushCount() {
+    return pushCount.get();
+  }
+
+  /**
+   * Total time in nanoseconds, spent by committers waiting for push lock.
+   */
+  public long getPushWaitTime() {
+    return pushWaitTime.get();
+  }
+
+  /**
+   * Count of commits, rebased on concurrently moved branch.
+   */
+  public long getPushRebaseCount() {
+    return pushRebaseCount.get();
+  }
+
   @NotNull
   @Override
   public GitRevision getLatestRevision() throws IOException {
-    lock.readLock().lock();
-    try {
-      return revisions.get(revisions.size() - 1);
-    } finally {
-      lock.readLock().unlock();
+    final GitRevision revision = revisions.last();
+    if (revision == null) {
+      throw new IllegalStateException("Repository has no revisions");
     }
+    return revision;
   }
 
   @NotNull
   @Override
   public VcsRevision getRevisionByDate(long dateTime) throws IOException {
-    lock.readLock().lock();
-    try {
-      final Map.Entry<Long, GitRevision> entry = revisionByDate.floorEntry(dateTime);
-      if (entry != null) {
-        return entry.getValue();
-      }
-      return revisions.get(0);
-    } finally {
-      lock.readLock().unlock();
+    final RevisionList revisions = this.revisions;
+    final Map.Entry<Long, GitRevision> entry = revisionByDate.floorEntry(dateTime);
+    if (entry != null) {
+      // Not published revision is newer than any published revision.
+      return revisions.contains(entry.getValue()) ? entry.getValue() : getLatestRevision();
     }
+    return revisions.get(0);
   }
 
   @NotNull
@@ -520,14 +988,10 @@ public class GitRepository implements VcsRepository {
 
   @Nullable
   private GitRevision getRevisionInfoUnsafe(int revision) throws IOException {
-    lock.readLock().lock();
-    try {
-      if (revision >= revisions.size())
-        return null;
-      return revisions.get(revision);
-    } finally {
-      lock.readLock().unlock();
-    }
+    final RevisionList revisions = this.revisions;
+    if (revision >= revisions.size())
+      return null;
+    return revisions.get(revision);
   }
 
   private static MessageDigest getMd5() {
@@ -540,16 +1004,11 @@ public class GitRepository implements VcsRepository {
 
   @NotNull
   private GitRevision getRevision(@NotNull ObjectId revisionId) throws SVNException {
-    lock.readLock().lock();
-    try {
-      final GitRevision revision = revisionByHash.get(revisionId);
-      if (revision == null) {
-        throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_REVISION, "No such revision " + revisionId.name()));
-      }
-      return revision;
-    } finally {
-      lock.readLock().unlock();
+    final GitRevision revision = revisionByHash.get(revisionId);
+    if (revision == null || !revisions.contains(revision)) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_REVISION, "No such revision " + revisionId.name()));
     }
+    return revision;
   }
 
   @NotNull
@@ -567,26 +1026,20 @@ public class GitRepository implements VcsRepository {
   @Override
   public int getLastChange(@NotNull String nodePath, int beforeRevision) {
     if (nodePath.isEmpty()) return beforeRevision;
-    final IntList revs = this.lastUpdates.get(nodePath);
-    if (revs != null) {
-      int prev = 0;
-      for (int i = revs.size() - 1; i >= 0; --i) {
-        final int rev = revs.get(i);
-        if ((rev >= 0) && (rev <= beforeRevision)) {
-          if (prev == MARK_NO_FILE) {
-            return MARK_NO_FILE;
-          }
-          return rev;
-        }
-        prev = rev;
-      }
+    lock.readLock().lock();
+    try {
+      return lastUpdates.getLastChange(nodePath, beforeRevision);
+    } finally {
+      lock.readLock().unlock();
     }
-    return MARK_NO_FILE;
   }
 
   @NotNull
   @Override
   public VcsCommitBuilder createCommitBuilder(@NotNull LockManagerWrite lockManager, @NotNull Map<String, String> locks) throws IOException, SVNException {
+    if (indexing) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_TXN_OUT_OF_DATE, "Repository indexing is in progress, try to commit later"));
+    }
     return new GitCommitBuilder(lockManager, locks, gitBranch);
   }
 
@@ -597,7 +1050,7 @@ public class GitRepository implements VcsRepository {
   }
 
   @NotNull
-  public Iterable<GitTreeEntry> loadTree(@Nullable GitTreeEntry tree) throws IOException {
+  public List<GitTreeEntry> loadTree(@Nullable GitTreeEntry tree) throws IOException {
     final GitObject<ObjectId> treeId = getTreeObject(tree);
     // Loading tree.
     if (treeId == null) {
@@ -661,6 +1114,56 @@ public class GitRepository implements VcsRepository {
     return lockManagerFactory.wrapLockWrite(this, work);
   }
 
+  /**
+   * Immutable list of published revisions.
+   * <p>
+   * New list shares items array with previous list: items after list size are never accessed by list readers,
+   * so appending to the latest list doesn't affect already published lists.
+   */
+  private static final class RevisionList {
+    @NotNull
+    private static final RevisionList EMPTY = new RevisionList(new GitRevision[16], 0);
+    @NotNull
+    private final GitRevision[] items;
+    private final int size;
+
+    private RevisionList(@NotNull GitRevision[] items, int size) {
+      this.items = items;
+      this.size = size;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    @NotNull
+    public GitRevision get(int index) {
+      if (index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return items[index];
+    }
+
+    @Nullable
+    public GitRevision last() {
+      return size == 0 ? null : items[size - 1];
+    }
+
+    public boolean contains(@NotNull GitRevision revision) {
+      return revision.getId() < size && items[revision.getId()] == revision;
+    }
+
+    /**
+     * Create list with additional revision. Must be called only for the latest list.
+     */
+    @NotNull
+    public RevisionList append(@NotNull GitRevision revision) {
+      final GitRevision[] newItems = size < items.length ? items : Arrays.copyOf(items, items.length * 2);
+      newItems[size] = revision;
+      return new RevisionList(newItems, size + 1);
+    }
+  }
+
   private static class ComputeBranchName implements BiFunction<RevCommit, CacheInfo, CacheInfo> {
     @NotNull
     private final String svnBranch;
@@ -679,33 +1182,72 @@ public class GitRepository implements VcsRepository {
     }
   }
 
+  /**
+   * Validates svn properties of created commit.
+   * <p>
+   * Directory entries are taken from commit builder tree updates, so validation doesn't walk created tree again
+   * and reuses already resolved properties of parent directories.
+   */
   private class GitPropertyValidator {
     @NotNull
-    private final Deque<GitFile> treeStack;
+    private final Deque<ValidatorDir> treeStack;
     @NotNull
     private final Map<String, Set<String>> propertyMismatch = new TreeMap<>();
+    // Load directory entries from repository instead of commit builder tree updates.
+    private final boolean loadTrees;
     private int errorCount = 0;
 
-    public GitPropertyValidator(@NotNull GitFile root) {
+    public GitPropertyValidator(@NotNull ObjectId treeId, @NotNull GitTreeUpdate root, boolean loadTrees) throws IOException, SVNException {
+      this.loadTrees = loadTrees;
       this.treeStack = new ArrayDeque<>();
-      this.treeStack.push(root);
+      this.treeStack.push(createDir(GitProperty.emptyArray, "", new GitTreeEntry(repository, FileMode.TREE, treeId, ""), root));
     }
 
-    public void openDir(@NotNull String name) throws IOException, SVNException {
-      final GitFile file = treeStack.element().getEntry(name);
-      if (file == null) {
+    public void openDir(@NotNull String name, @NotNull GitTreeUpdate update) throws IOException, SVNException {
+      final ValidatorDir dir = treeStack.element();
+      final GitTreeEntry entry = dir.entries.get(name);
+      if (entry == null) {
         throw new IllegalStateException("Invalid state: can't find file " + name + " in created commit.");
       }
-      treeStack.push(file);
+      treeStack.push(createDir(dir.props, dir.fullPath, entry, update));
+    }
+
+    @NotNull
+    private ValidatorDir createDir(@NotNull GitProperty[] parentProps, @NotNull String parentPath, @NotNull GitTreeEntry entry, @NotNull GitTreeUpdate update) throws IOException, SVNException {
+      final Map<String, GitTreeEntry> entries;
+      final List<GitTreeEntry> sortedEntries;
+      if (loadTrees) {
+        sortedEntries = loadTree(entry);
+        entries = new HashMap<>();
+        for (GitTreeEntry child : sortedEntries) {
+          entries.put(child.getFileName(), child);
+        }
+      } else {
+        entries = update.getEntries();
+        // Properties are cached by tree id, so they should be collected in tree order, not in hash order.
+        sortedEntries = new ArrayList<>(entries.values());
+        Collections.sort(sortedEntries);
+      }
+      final GitProperty[] props = GitProperty.joinProperties(parentProps, entry.getFileName(), FileMode.TREE, collectProperties(entry, () -> sortedEntries));
+      return new ValidatorDir(StringHelper.joinPath(parentPath, entry.getFileName()), entries, props);
     }
 
     public void checkProperties(@Nullable String name, @NotNull Map<String, String> properties) throws IOException, SVNException {
-      final GitFile dir = treeStack.element();
-      final GitFile node = name == null ? dir : dir.getEntry(name);
-      if (node == null) {
-        throw new IllegalStateException("Invalid state: can't find entry " + name + " in created commit.");
+      final ValidatorDir dir = treeStack.element();
+      final Map<String, String> expected;
+      final String fullPath;
+      if (name == null) {
+        expected = GitFile.getProperties(GitRepository.this, dir.props, FileMode.TREE, null);
+        fullPath = dir.fullPath;
+      } else {
+        final GitTreeEntry entry = dir.entries.get(name);
+        if (entry == null) {
+          throw new IllegalStateException("Invalid state: can't find entry " + name + " in created commit.");
+        }
+        final GitProperty[] props = GitProperty.joinProperties(dir.props, name, entry.getFileMode(), collectProperties(entry, () -> loadTree(entry)));
+        expected = GitFile.getProperties(GitRepository.this, props, entry.getFileMode(), entry.getObjectId());
+        fullPath = StringHelper.joinPath(dir.fullPath, name);
       }
-      final Map<String, String> expected = node.getProperties();
       if (!properties.equals(expected)) {
         if (errorCount < MAX_PROPERTY_ERRROS) {
           final StringBuilder delta = new StringBuilder();
@@ -723,7 +1265,7 @@ public class GitRepository implements VcsRepository {
               if (value == null) {
                 value = new TreeSet<>();
               }
-              value.add(node.getFullPath());
+              value.add(fullPath);
               return value;
             }
           });
@@ -762,6 +1304,46 @@ public class GitRepository implements VcsRepository {
     }
   }
 
+  private static final class PathKey {
+    @NotNull
+    private final ObjectId treeId;
+    @NotNull
+    private final String path;
+
+    private PathKey(@NotNull ObjectId treeId, @NotNull String path) {
+      this.treeId = treeId.copy();
+      this.path = path;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final PathKey that = (PathKey) o;
+      return treeId.equals(that.treeId) && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * treeId.hashCode() + path.hashCode();
+    }
+  }
+
+  private static final class ValidatorDir {
+    @NotNull
+    private final String fullPath;
+    @NotNull
+    private final Map<String, GitTreeEntry> entries;
+    @NotNull
+    private final GitProperty[] props;
+
+    private ValidatorDir(@NotNull String fullPath, @NotNull Map<String, GitTreeEntry> entries, @NotNull GitProperty[] props) {
+      this.fullPath = fullPath;
+      this.entries = entries;
+      this.props = props;
+    }
+  }
+
   private class GitCommitBuilder implements VcsCommitBuilder {
     @NotNull
     private final Deque<GitTreeUpdate> treeStack;
@@ -837,8 +1419,9 @@ public class GitRepository implements VcsRepository {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_ALREADY_EXISTS, getFullPath(name)));
       }
       final GitFile source = (GitFile) sourceDir;
-      validateActions.add(validator -> validator.openDir(name));
-      treeStack.push(new GitTreeUpdate(name, loadTree(source == null ? null : source.getTreeEntry())));
+      final GitTreeUpdate update = new GitTreeUpdate(name, loadTree(source == null ? null : source.getTreeEntry()));
+      validateActions.add(validator -> validator.openDir(name, update));
+      treeStack.push(update);
     }
 
     @Override
@@ -849,8 +1432,9 @@ public class GitRepository implements VcsRepository {
       if ((originalDir == null) || (!originalDir.getFileMode().equals(FileMode.TREE))) {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.ENTRY_NOT_FOUND, getFullPath(name)));
       }
-      validateActions.add(validator -> validator.openDir(name));
-      treeStack.push(new GitTreeUpdate(name, loadTree(originalDir)));
+      final GitTreeUpdate update = new GitTreeUpdate(name, loadTree(originalDir));
+      validateActions.add(validator -> validator.openDir(name, update));
+      treeStack.push(update);
     }
 
     @Override
@@ -912,43 +1496,208 @@ public class GitRepository implements VcsRepository {
 
     @Override
     public GitRevision commit(@NotNull User userInfo, @NotNull String message) throws SVNException, IOException {
-      synchronized (pushLock) {
-        final GitTreeUpdate root = treeStack.element();
-        final ObjectId treeId = root.buildTree(inserter);
-        log.info("Create tree {} for commit.", treeId.name());
-        inserter.flush();
-
-        final CommitBuilder commitBuilder = new CommitBuilder();
-        final PersonIdent ident = createIdent(userInfo);
-        commitBuilder.setAuthor(ident);
-        commitBuilder.setCommitter(ident);
-        commitBuilder.setMessage(message);
-        final RevCommit parentCommit = revision.getGitNewCommit();
-        if (parentCommit != null) {
-          commitBuilder.setParentId(parentCommit.getId());
-        }
-        commitBuilder.setTreeId(treeId);
-        final ObjectId commitId = inserter.insert(commitBuilder);
-        inserter.flush();
+      final GitTreeUpdate root = treeStack.element();
+      final ObjectId treeId = root.buildTree(inserter);
+      log.info("Create tree {} for commit.", treeId.name());
+      final PersonIdent ident = createIdent(userInfo);
+      ObjectId parentCommit = revision.getGitCommitId();
+      ObjectId commitTree = treeId;
+      for (int attempt = 0; ; ++attempt) {
+        final ObjectId commitId = createCommit(ident, message, parentCommit, commitTree);
 
         log.info("Validate properties");
-        validateProperties(new RevWalk(repository).parseCommit(commitId));
+        validateProperties(root, commitTree, commitTree != treeId);
 
         log.info("Create commit {}: {}", commitId.name(), message);
         log.info("Try to push commit in branch: {}", branch);
-        if (!pushMode.push(repository, commitId, branch)) {
+        final boolean pushed;
+        final long waitStart = System.nanoTime();
+        synchronized (pushLock) {
+          final long waitTime = System.nanoTime() - waitStart;
+          pushCount.incrementAndGet();
+          pushWaitTime.addAndGet(waitTime);
+          log.debug("Push lock wait time: {} ms", TimeUnit.NANOSECONDS.toMillis(waitTime));
+          pushed = pushMode.push(repository, commitId, branch);
+        }
+        if (pushed) {
+          log.info("Commit is pushed");
+          updateRevisions();
+          return getRevision(commitId);
+        }
+        // Branch is moved by concurrent commit: try to apply our changes over new branch head.
+        final Ref head = attempt < MAX_REBASE_ATTEMPTS ? repository.getRef(branch) : null;
+        final ObjectId headTree = head != null ? new RevWalk(repository).parseCommit(head.getObjectId()).getTree() : null;
+        commitTree = headTree != null ? mergeTree(treeId, headTree) : null;
+        if (commitTree == null) {
           log.info("Non fast forward push rejected");
+          // Caller retries commit over new revision: up-to-date, lock and properties checks will be done again.
+          updateRevisions();
           return null;
         }
-        log.info("Commit is pushed");
-        updateRevisions();
-        return getRevision(commitId);
+        log.info("Rebase commit on branch head {}", head.getObjectId().name());
+        pushRebaseCount.incrementAndGet();
+        parentCommit = head.getObjectId();
+      }
+    }
+
+    @NotNull
+    private ObjectId createCommit(@NotNull PersonIdent ident, @NotNull String message, @Nullable ObjectId parentCommit, @NotNull ObjectId treeId) throws IOException {
+      final CommitBuilder commitBuilder = new CommitBuilder();
+      commitBuilder.setAuthor(ident);
+      commitBuilder.setCommitter(ident);
+      commitBuilder.setMessage(message);
+      if (parentCommit != null) {
+        commitBuilder.setParentId(parentCommit);
+      }
+      commitBuilder.setTreeId(treeId);
+      final ObjectId commitId = inserter.insert(commitBuilder);
+      inserter.flush();
+      return commitId;
+    }
+
+    /**
+     * Apply changes between original revision tree and commit tree to other tree.
+     * <p>
+     * Rebase is done only when changed paths of both trees don't intersect: changed path can't be equal to, be
+     * a parent or a child of other tree changed path. Also Git config file change (like .gitattributes) intersects
+     * with all paths of its directory, because it can change their properties.
+     *
+     * @return Merged tree or null, if changes of both trees intersect.
+     */
+    @Nullable
+    private ObjectId mergeTree(@NotNull ObjectId treeId, @NotNull ObjectId headTree) throws IOException {
+      final RevCommit baseCommit = revision.getGitNewCommit();
+      final ObjectId baseTree = baseCommit != null ? baseCommit.getTree() : null;
+      final NavigableSet<String> commitChanges = collectChanges(baseTree, treeId);
+      final NavigableSet<String> headChanges = collectChanges(baseTree, headTree);
+      String conflict = findConflict(commitChanges, headChanges);
+      if (conflict == null) {
+        conflict = findConflict(headChanges, commitChanges);
       }
+      if (conflict != null) {
+        log.info("Can't rebase commit: path {} is modified", conflict);
+        return null;
+      }
+      final DirCache dirCache = DirCache.newInCore();
+      final DirCacheBuilder builder = dirCache.builder();
+      final Set<String> files = new HashSet<>();
+      final TreeWalk treeWalk = new TreeWalk(repository);
+      try {
+        treeWalk.setRecursive(true);
+        if (baseCommit != null) {
+          treeWalk.addTree(baseCommit.getTree());
+        } else {
+          treeWalk.addTree(new EmptyTreeIterator());
+        }
+        treeWalk.addTree(treeId);
+        treeWalk.addTree(headTree);
+        while (treeWalk.next()) {
+          final int source;
+          if (isSameEntry(treeWalk, 0, 1)) {
+            source = 2;
+          } else if (isSameEntry(treeWalk, 0, 2) || isSameEntry(treeWalk, 1, 2)) {
+            source = 1;
+          } else {
+            log.info("Can't rebase commit: file {} is modified", treeWalk.getPathString());
+            return null;
+          }
+          final FileMode fileMode = treeWalk.getFileMode(source);
+          if (fileMode == FileMode.MISSING) {
+            continue;
+          }
+          final String path = treeWalk.getPathString();
+          for (int index = path.indexOf('/'); index >= 0; index = path.indexOf('/', index + 1)) {
+            if (files.contains(path.substring(0, index))) {
+              log.info("Can't rebase commit: file {} is replaced by directory", path.substring(0, index));
+              return null;
+            }
+          }
+          files.add(path);
+          final DirCacheEntry entry = new DirCacheEntry(treeWalk.getRawPath());
+          entry.setFileMode(fileMode);
+          entry.setObjectId(treeWalk.getObjectId(source));
+          builder.add(entry);
+        }
+      } finally {
+        treeWalk.release();
+      }
+      builder.finish();
+      final ObjectId mergedTree = dirCache.writeTree(inserter);
+      inserter.flush();
+      return mergedTree;
+    }
+
+    /**
+     * Collect changed paths between trees. Added, removed or replaced directory is reported as single path.
+     */
+    @NotNull
+    private NavigableSet<String> collectChanges(@Nullable ObjectId oldTree, @NotNull ObjectId newTree) throws IOException {
+      final NavigableSet<String> changes = new TreeSet<>();
+      final TreeWalk treeWalk = new TreeWalk(repository);
+      try {
+        if (oldTree != null) {
+          treeWalk.addTree(oldTree);
+        } else {
+          treeWalk.addTree(new EmptyTreeIterator());
+        }
+        treeWalk.addTree(newTree);
+        while (treeWalk.next()) {
+          if (isSameEntry(treeWalk, 0, 1)) {
+            continue;
+          }
+          if (FileMode.TREE.equals(treeWalk.getRawMode(0)) && FileMode.TREE.equals(treeWalk.getRawMode(1))) {
+            treeWalk.enterSubtree();
+          } else {
+            changes.add(treeWalk.getPathString());
+          }
+        }
+      } finally {
+        treeWalk.release();
+      }
+      return changes;
+    }
+
+    /**
+     * Find path from first changes, which intersects with second changes.
+     */
+    @Nullable
+    private String findConflict(@NotNull NavigableSet<String> changes, @NotNull NavigableSet<String> otherChanges) {
+      for (String path : changes) {
+        // Same path or changed child.
+        if (otherChanges.contains(path) || !otherChanges.subSet(path + '/', path + '0').isEmpty()) {
+          return path;
+        }
+        // Changed parent.
+        for (int index = path.indexOf('/'); index >= 0; index = path.indexOf('/', index + 1)) {
+          if (otherChanges.contains(path.substring(0, index))) {
+            return path;
+          }
+        }
+        // Git config file changes properties of all paths in its directory.
+        final int index = path.lastIndexOf('/');
+        if (PropertyMapping.getRegisteredFiles().contains(path.substring(index + 1))) {
+          final String dir = path.substring(0, Math.max(index, 0));
+          if (dir.isEmpty() ? !otherChanges.isEmpty() : !otherChanges.subSet(dir + '/', dir + '0').isEmpty()) {
+            return path;
+          }
+        }
+      }
+      return null;
+    }
+
+    private boolean isSameEntry(@NotNull TreeWalk treeWalk, int a, int b) {
+      return treeWalk.getRawMode(a) == treeWalk.getRawMode(b) && treeWalk.idEqual(a, b);
     }
 
-    private void validateProperties(@NotNull RevCommit commit) throws IOException, SVNException {
-      final GitFile root = new GitFile(GitRepository.this, commit, 0);
-      final GitPropertyValidator validator = new GitPropertyValidator(root);
+    /**
+     * Validate properties of created tree.
+     *
+     * @param root      Root tree update.
+     * @param treeId    Created tree.
+     * @param loadTrees Created tree differs from tree updates (commit is rebased), so directories must be loaded from repository.
+     */
+    private void validateProperties(@NotNull GitTreeUpdate root, @NotNull ObjectId treeId, boolean loadTrees) throws IOException, SVNException {
+      final GitPropertyValidator validator = new GitPropertyValidator(treeId, root, loadTrees);
       for (VcsConsumer<GitPropertyValidator> validateAction : validateActions) {
         validateAction.accept(validator);
       }
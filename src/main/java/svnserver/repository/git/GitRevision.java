@@ -28,6 +28,9 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Git revision.
+ * <p>
+ * Revision keeps only object identifiers: git commit, log message and renames are loaded on demand
+ * through repository caches.
  *
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
@@ -37,28 +40,19 @@ public final class GitRevision implements VcsRevision {
   @NotNull
   private final ObjectId cacheCommit;
   @Nullable
-  private final RevCommit gitOldCommit;
-  @Nullable
-  private final RevCommit gitNewCommit;
-
-  @NotNull
-  private final Map<String, VcsCopyFrom> renames;
+  private final ObjectId gitCommit;
   private final long date;
   private final int revision;
 
   public GitRevision(@NotNull GitRepository repo,
                      @NotNull ObjectId cacheCommit,
                      int revision,
-                     @NotNull Map<String, VcsCopyFrom> renames,
-                     @Nullable RevCommit gitOldCommit,
-                     @Nullable RevCommit gitNewCommit,
+                     @Nullable ObjectId gitCommit,
                      int commitTimeSec) {
     this.repo = repo;
     this.cacheCommit = cacheCommit;
     this.revision = revision;
-    this.renames = renames;
-    this.gitOldCommit = gitOldCommit;
-    this.gitNewCommit = gitNewCommit;
+    this.gitCommit = gitCommit;
     this.date = TimeUnit.SECONDS.toMillis(commitTimeSec);
   }
 
@@ -73,19 +67,35 @@ public final class GitRevision implements VcsRevision {
   }
 
   @Nullable
-  public RevCommit getGitNewCommit() {
-    return gitNewCommit;
+  public ObjectId getGitCommitId() {
+    return gitCommit;
+  }
+
+  @Nullable
+  public RevCommit getGitNewCommit() throws IOException {
+    return gitCommit == null ? null : repo.loadCommit(gitCommit);
   }
 
   @NotNull
   @Override
-  public Map<String, GitLogEntry> getChanges() throws IOException, SVNException {
+  public Map<String, RevisionChanges.Entry> getChanges() throws IOException, SVNException {
+    return repo.loadChanges(this).getEntries();
+  }
+
+  /**
+   * Compare revision tree with previous revision tree.
+   */
+  @NotNull
+  Map<String, GitLogEntry> collectChanges() throws IOException, SVNException {
+    final RevCommit gitNewCommit = getGitNewCommit();
     if (gitNewCommit == null) {
       return Collections.emptyMap();
     }
+    final RevCommit gitOldCommit = revision > 0 ? repo.getRevisionInfo(revision - 1).getGitNewCommit() : null;
     final GitFile oldTree = gitOldCommit == null ? new GitFile(repo, null, "", GitProperty.emptyArray, revision - 1) : new GitFile(repo, gitOldCommit, revision - 1);
     final GitFile newTree = new GitFile(repo, gitNewCommit, revision);
 
+    final Map<String, VcsCopyFrom> renames = getRenames();
     final Map<String, GitLogEntry> changes = new TreeMap<>();
     for (Map.Entry<String, GitLogPair> entry : ChangeHelper.collectChanges(oldTree, newTree, false).entrySet()) {
       changes.put(entry.getKey(), new GitLogEntry(entry.getValue(), renames));
@@ -95,15 +105,15 @@ public final class GitRevision implements VcsRevision {
 
   @NotNull
   @Override
-  public Map<String, String> getProperties(boolean includeInternalProps) {
+  public Map<String, String> getProperties(boolean includeInternalProps) throws IOException {
     final Map<String, String> props = new HashMap<>();
     if (includeInternalProps) {
       putProperty(props, SVNRevisionProperty.AUTHOR, getAuthor());
       putProperty(props, SVNRevisionProperty.LOG, getLog());
       putProperty(props, SVNRevisionProperty.DATE, getDateString());
     }
-    if (gitNewCommit != null) {
-      props.put(SvnConstants.PROP_GIT, gitNewCommit.name());
+    if (gitCommit != null) {
+      props.put(SvnConstants.PROP_GIT, gitCommit.name());
     }
     return props;
   }
@@ -121,7 +131,8 @@ public final class GitRevision implements VcsRevision {
 
   @Nullable
   @Override
-  public String getAuthor() {
+  public String getAuthor() throws IOException {
+    final RevCommit gitNewCommit = getGitNewCommit();
     if (gitNewCommit == null)
       return null;
 
@@ -131,32 +142,39 @@ public final class GitRevision implements VcsRevision {
 
   @Nullable
   @Override
-  public String getLog() {
+  public String getLog() throws IOException {
+    final RevCommit gitNewCommit = getGitNewCommit();
     return gitNewCommit == null ? null : gitNewCommit.getFullMessage().trim();
   }
 
   @Nullable
   @Override
   public GitFile getFile(@NotNull String fullPath) throws IOException, SVNException {
+    final RevCommit gitNewCommit = getGitNewCommit();
     if (gitNewCommit == null) {
       return new GitFile(repo, null, "", GitProperty.emptyArray, revision);
     }
-    GitFile result = new GitFile(repo, gitNewCommit, revision);
+    final StringBuilder path = new StringBuilder();
     for (String pathItem : fullPath.split("/")) {
       if (pathItem.isEmpty()) {
         continue;
       }
-      result = result.getEntry(pathItem);
-      if (result == null) {
-        return null;
+      if (path.length() > 0) {
+        path.append('/');
       }
+      path.append(pathItem);
     }
-    return result;
+    return repo.resolveFile(gitNewCommit, path.toString(), revision);
+  }
+
+  @NotNull
+  public Map<String, VcsCopyFrom> getRenames() throws IOException {
+    return repo.loadRenames(this);
   }
 
   @Nullable
   @Override
-  public VcsCopyFrom getCopyFrom(@NotNull String fullPath) {
-    return renames.get(fullPath);
+  public VcsCopyFrom getCopyFrom(@NotNull String fullPath) throws IOException {
+    return getRenames().get(fullPath);
   }
 }
@@ -0,0 +1,130 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Snapshot of loaded revision index for fast repository startup.
+ * <p>
+ * Contains data of revisions, required for {@link GitRevision} creation, and {@link LastChangeIndex}.
+ */
+public final class IndexSnapshot {
+  private static final int VERSION = 2;
+
+  public static final class Entry {
+    @NotNull
+    private final ObjectId cacheCommit;
+    @Nullable
+    private final ObjectId gitCommit;
+    private final int commitTime;
+
+    public Entry(@NotNull ObjectId cacheCommit, @Nullable ObjectId gitCommit, int commitTime) {
+      this.cacheCommit = cacheCommit;
+      this.gitCommit = gitCommit;
+      this.commitTime = commitTime;
+    }
+
+    @NotNull
+    public ObjectId getCacheCommit() {
+      return cacheCommit;
+    }
+
+    @Nullable
+    public ObjectId getGitCommit() {
+      return gitCommit;
+    }
+
+    public int getCommitTime() {
+      return commitTime;
+    }
+  }
+
+  @NotNull
+  private final List<Entry> entries;
+  @NotNull
+  private final LastChangeIndex lastUpdates;
+
+  public IndexSnapshot(@NotNull List<Entry> entries, @NotNull LastChangeIndex lastUpdates) {
+    this.entries = entries;
+    this.lastUpdates = lastUpdates;
+  }
+
+  @NotNull
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  @NotNull
+  public LastChangeIndex getLastUpdates() {
+    return lastUpdates;
+  }
+
+  @NotNull
+  public byte[] save() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(stream))) {
+      output.writeInt(VERSION);
+      output.writeInt(entries.size());
+      final byte[] buffer = new byte[Constants.OBJECT_ID_LENGTH];
+      for (Entry entry : entries) {
+        entry.cacheCommit.copyRawTo(buffer, 0);
+        output.write(buffer);
+        output.writeBoolean(entry.gitCommit != null);
+        if (entry.gitCommit != null) {
+          entry.gitCommit.copyRawTo(buffer, 0);
+          output.write(buffer);
+        }
+        output.writeInt(entry.commitTime);
+      }
+      lastUpdates.write(output);
+    }
+    return stream.toByteArray();
+  }
+
+  /**
+   * Load snapshot.
+   *
+   * @param data Snapshot data.
+   * @return Snapshot or null, if snapshot has unsupported format version.
+   */
+  @Nullable
+  public static IndexSnapshot load(@NotNull byte[] data) throws IOException {
+    try (DataInputStream input = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+      if (input.readInt() != VERSION) {
+        return null;
+      }
+      final int count = input.readInt();
+      final List<Entry> entries = new ArrayList<>(count);
+      final byte[] buffer = new byte[Constants.OBJECT_ID_LENGTH];
+      for (int i = 0; i < count; ++i) {
+        input.readFully(buffer);
+        final ObjectId cacheCommit = ObjectId.fromRaw(buffer);
+        final ObjectId gitCommit;
+        if (input.readBoolean()) {
+          input.readFully(buffer);
+          gitCommit = ObjectId.fromRaw(buffer);
+        } else {
+          gitCommit = null;
+        }
+        final int commitTime = input.readInt();
+        entries.add(new Entry(cacheCommit, gitCommit, commitTime));
+      }
+      return new IndexSnapshot(entries, LastChangeIndex.read(input));
+    }
+  }
+}
@@ -0,0 +1,341 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compact index of path change revisions.
+ * <p>
+ * Paths are stored as trie of path segments: every node keeps parent node id and interned segment name id.
+ * Child lookup is done by open addressing hash table by (parent, name) pair, so there is no per-path
+ * String or collection object. Change revisions of every path are stored as sorted packed int values:
+ * (revision &lt;&lt; 1) | (removed ? 1 : 0).
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class LastChangeIndex {
+  public static final int MARK_NO_FILE = -1;
+
+  private static final int ROOT = 0;
+  private static final int EMPTY = -1;
+  private static final int INITIAL_CAPACITY = 64;
+
+  // Segment names.
+  @NotNull
+  private String[] names = new String[INITIAL_CAPACITY];
+  @NotNull
+  private int[] nameTable = createTable(INITIAL_CAPACITY * 2);
+  private int nameCount = 0;
+
+  // Path nodes.
+  @NotNull
+  private int[] nodeParent = new int[INITIAL_CAPACITY];
+  @NotNull
+  private int[] nodeName = new int[INITIAL_CAPACITY];
+  @NotNull
+  private int[] nodeTable = createTable(INITIAL_CAPACITY * 2);
+  private int nodeCount = 0;
+
+  // Path changes: single change is stored inline, multiple changes are stored in separate array.
+  @NotNull
+  private int[] changeCount = new int[INITIAL_CAPACITY];
+  @NotNull
+  private int[] changeSingle = new int[INITIAL_CAPACITY];
+  @NotNull
+  private int[][] changeMulti = new int[INITIAL_CAPACITY][];
+
+  public LastChangeIndex() {
+    addNode(EMPTY, EMPTY);
+  }
+
+  /**
+   * Register path change. Changes must be added in revision order.
+   *
+   * @param path     Path.
+   * @param revision Revision.
+   * @param removed  Path is removed in this revision.
+   */
+  public void add(@NotNull String path, int revision, boolean removed) {
+    final int node = getOrCreateNode(path);
+    final int value = (revision << 1) | (removed ? 1 : 0);
+    final int count = changeCount[node];
+    if (count == 0) {
+      changeSingle[node] = value;
+    } else {
+      int[] multi = changeMulti[node];
+      if (multi == null) {
+        multi = new int[4];
+        multi[0] = changeSingle[node];
+        changeMulti[node] = multi;
+      } else if (multi.length == count) {
+        multi = Arrays.copyOf(multi, count * 2);
+        changeMulti[node] = multi;
+      }
+      multi[count] = value;
+    }
+    changeCount[node] = count + 1;
+  }
+
+  /**
+   * Get last path change before revision (inclusive).
+   *
+   * @param path           Path.
+   * @param beforeRevision Revision.
+   * @return Last change revision or {@link #MARK_NO_FILE} if path is not exists in revision.
+   */
+  public int getLastChange(@NotNull String path, int beforeRevision) {
+    final int node = findNode(path);
+    if (node == EMPTY) {
+      return MARK_NO_FILE;
+    }
+    final int count = changeCount[node];
+    final int key = (beforeRevision << 1) | 1;
+    final int value;
+    if (count <= 1) {
+      if (count == 0 || changeSingle[node] > key) {
+        return MARK_NO_FILE;
+      }
+      value = changeSingle[node];
+    } else {
+      final int[] multi = changeMulti[node];
+      int index = Arrays.binarySearch(multi, 0, count, key);
+      if (index < 0) {
+        index = -index - 2;
+        if (index < 0) {
+          return MARK_NO_FILE;
+        }
+      }
+      value = multi[index];
+    }
+    return (value & 1) != 0 ? MARK_NO_FILE : value >>> 1;
+  }
+
+  /**
+   * @return Count of indexed paths.
+   */
+  public int getPathCount() {
+    return nodeCount - 1;
+  }
+
+  /**
+   * Write index content.
+   *
+   * @param output Output.
+   */
+  public void write(@NotNull DataOutput output) throws IOException {
+    output.writeInt(nameCount);
+    for (int i = 0; i < nameCount; ++i) {
+      output.writeUTF(names[i]);
+    }
+    output.writeInt(nodeCount);
+    for (int i = ROOT + 1; i < nodeCount; ++i) {
+      output.writeInt(nodeParent[i]);
+      output.writeInt(nodeName[i]);
+    }
+    for (int i = ROOT; i < nodeCount; ++i) {
+      final int count = changeCount[i];
+      output.writeInt(count);
+      if (count == 1) {
+        output.writeInt(changeSingle[i]);
+      } else {
+        for (int j = 0; j < count; ++j) {
+          output.writeInt(changeMulti[i][j]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Read index content written by {@link #write(DataOutput)}.
+   *
+   * @param input Input.
+   * @return Index.
+   */
+  @NotNull
+  public static LastChangeIndex read(@NotNull DataInput input) throws IOException {
+    final LastChangeIndex index = new LastChangeIndex();
+    final int names = input.readInt();
+    for (int i = 0; i < names; ++i) {
+      index.addName(input.readUTF());
+    }
+    final int nodes = input.readInt();
+    for (int i = ROOT + 1; i < nodes; ++i) {
+      final int parent = input.readInt();
+      final int name = input.readInt();
+      if (parent < 0 || parent >= i || name < 0 || name >= names) {
+        throw new IOException("Invalid path index node: " + i);
+      }
+      index.addNode(parent, name);
+    }
+    for (int i = ROOT; i < nodes; ++i) {
+      final int count = input.readInt();
+      if (count == 1) {
+        index.changeSingle[i] = input.readInt();
+      } else if (count > 1) {
+        final int[] multi = new int[count];
+        for (int j = 0; j < count; ++j) {
+          multi[j] = input.readInt();
+        }
+        index.changeMulti[i] = multi;
+      }
+      index.changeCount[i] = count;
+    }
+    return index;
+  }
+
+  private int findNode(@NotNull String path) {
+    int node = ROOT;
+    int begin = 0;
+    while (begin <= path.length()) {
+      int end = path.indexOf('/', begin);
+      if (end < 0) end = path.length();
+      if (end > begin) {
+        final int name = findName(path, begin, end);
+        if (name == EMPTY) {
+          return EMPTY;
+        }
+        node = findChild(node, name);
+        if (node == EMPTY) {
+          return EMPTY;
+        }
+      }
+      begin = end + 1;
+    }
+    return node;
+  }
+
+  private int getOrCreateNode(@NotNull String path) {
+    int node = ROOT;
+    int begin = 0;
+    while (begin <= path.length()) {
+      int end = path.indexOf('/', begin);
+      if (end < 0) end = path.length();
+      if (end > begin) {
+        int name = findName(path, begin, end);
+        if (name == EMPTY) {
+          name = addName(path.substring(begin, end));
+        }
+        final int child = findChild(node, name);
+        node = child != EMPTY ? child : addNode(node, name);
+      }
+      begin = end + 1;
+    }
+    return node;
+  }
+
+  private int findName(@NotNull String path, int begin, int end) {
+    final int length = end - begin;
+    int hash = 0;
+    for (int i = begin; i < end; ++i) {
+      hash = 31 * hash + path.charAt(i);
+    }
+    final int mask = nameTable.length - 1;
+    for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+      final int name = nameTable[slot];
+      if (name == EMPTY) {
+        return EMPTY;
+      }
+      final String text = names[name];
+      if (text.length() == length && text.hashCode() == hash && text.regionMatches(0, path, begin, length)) {
+        return name;
+      }
+    }
+  }
+
+  private int addName(@NotNull String text) {
+    if (nameCount == names.length) {
+      names = Arrays.copyOf(names, nameCount * 2);
+    }
+    final int name = nameCount++;
+    names[name] = text;
+    if (nameCount * 2 > nameTable.length) {
+      nameTable = createTable(nameTable.length * 2);
+      for (int i = 0; i < nameCount; ++i) {
+        insertName(i);
+      }
+    } else {
+      insertName(name);
+    }
+    return name;
+  }
+
+  private void insertName(int name) {
+    final int mask = nameTable.length - 1;
+    int slot = mix(names[name].hashCode()) & mask;
+    while (nameTable[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    nameTable[slot] = name;
+  }
+
+  private int findChild(int parent, int name) {
+    final int mask = nodeTable.length - 1;
+    for (int slot = mix(parent * 31 + name) & mask; ; slot = (slot + 1) & mask) {
+      final int node = nodeTable[slot];
+      if (node == EMPTY) {
+        return EMPTY;
+      }
+      if (nodeParent[node] == parent && nodeName[node] == name) {
+        return node;
+      }
+    }
+  }
+
+  private int addNode(int parent, int name) {
+    if (nodeCount == nodeParent.length) {
+      final int capacity = nodeCount * 2;
+      nodeParent = Arrays.copyOf(nodeParent, capacity);
+      nodeName = Arrays.copyOf(nodeName, capacity);
+      changeCount = Arrays.copyOf(changeCount, capacity);
+      changeSingle = Arrays.copyOf(changeSingle, capacity);
+      changeMulti = Arrays.copyOf(changeMulti, capacity);
+    }
+    final int node = nodeCount++;
+    nodeParent[node] = parent;
+    nodeName[node] = name;
+    if (parent == EMPTY) {
+      return node;
+    }
+    if (nodeCount * 2 > nodeTable.length) {
+      nodeTable = createTable(nodeTable.length * 2);
+      for (int i = ROOT + 1; i < nodeCount; ++i) {
+        insertNode(i);
+      }
+    } else {
+      insertNode(node);
+    }
+    return node;
+  }
+
+  private void insertNode(int node) {
+    final int mask = nodeTable.length - 1;
+    int slot = mix(nodeParent[node] * 31 + nodeName[node]) & mask;
+    while (nodeTable[slot] != EMPTY) {
+      slot = (slot + 1) & mask;
+    }
+    nodeTable[slot] = node;
+  }
+
+  @NotNull
+  private static int[] createTable(int size) {
+    final int[] table = new int[size];
+    Arrays.fill(table, EMPTY);
+    return table;
+  }
+
+  private static int mix(int hash) {
+    final int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,172 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watches git reference files and notifies about reference changes in background thread.
+ * <p>
+ * Both loose reference file and packed-refs file are watched. Notifications are coalesced: events, received
+ * while listener is running, cause only one more notification.
+ * <p>
+ * If directory of reference file doesn't exist yet, the closest existing parent directory is watched until
+ * missing directories are created.
+ */
+final class RefWatcher implements AutoCloseable {
+  @NotNull
+  private static final Logger log = LoggerFactory.getLogger(RefWatcher.class);
+  @NotNull
+  private static final String PACKED_REFS = "packed-refs";
+
+  @NotNull
+  private final File gitDir;
+  @NotNull
+  private final WatchService watchService;
+  // Watched directory to watched entry name and watched file, which is reached through this entry.
+  @NotNull
+  private final Map<WatchKey, Map<String, File>> watchKeys = new HashMap<>();
+  @NotNull
+  private final Runnable listener;
+  @NotNull
+  private final Thread thread;
+
+  private RefWatcher(@NotNull File gitDir, @NotNull String refName, @NotNull Runnable listener) throws IOException {
+    this.gitDir = gitDir;
+    this.listener = listener;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    try {
+      watch(new File(gitDir, PACKED_REFS));
+      watch(new File(gitDir, refName));
+    } catch (IOException | RuntimeException e) {
+      watchService.close();
+      throw e;
+    }
+    this.thread = new Thread(this::run, "Reference watcher " + refName);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Create watcher for reference.
+   *
+   * @param gitDir   Git repository directory (null for in-memory repositories).
+   * @param refName  Reference name.
+   * @param listener Reference change listener.
+   * @return Watcher or null, if reference can't be watched.
+   */
+  @Nullable
+  public static RefWatcher create(@Nullable File gitDir, @NotNull String refName, @NotNull Runnable listener) {
+    if (gitDir == null) {
+      return null;
+    }
+    try {
+      return new RefWatcher(gitDir, refName, listener);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Can't watch reference " + refName + " in " + gitDir + ": repository will be checked on every connection", e);
+      return null;
+    }
+  }
+
+  /**
+   * Watch file or, if its directory doesn't exist, the closest existing parent directory inside git directory.
+   */
+  private void watch(@NotNull File file) throws IOException {
+    File entry = file;
+    File dir = file.getParentFile();
+    while (!dir.isDirectory()) {
+      if (dir.equals(gitDir)) {
+        throw new IOException("Git directory not found: " + gitDir);
+      }
+      entry = dir;
+      dir = dir.getParentFile();
+    }
+    final WatchKey key = dir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    watchKeys.computeIfAbsent(key, k -> new HashMap<>()).put(entry.getName(), file);
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        boolean changed = processKey(watchService.take());
+        // Coalesce already queued events.
+        while (true) {
+          final WatchKey key = watchService.poll();
+          if (key == null) break;
+          changed |= processKey(key);
+        }
+        if (changed) {
+          try {
+            listener.run();
+          } catch (RuntimeException e) {
+            log.error("Reference change processing failed", e);
+          }
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ignored) {
+      // Watcher is closed.
+    }
+  }
+
+  private boolean processKey(@NotNull WatchKey key) {
+    final Map<String, File> entries = watchKeys.getOrDefault(key, new HashMap<>());
+    final Path dir = (Path) key.watchable();
+    final List<File> rewatch = new ArrayList<>();
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      final Object context = event.context();
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        changed = true;
+      } else if (context instanceof Path) {
+        final File file = entries.get(context.toString());
+        if (file != null) {
+          changed = true;
+          // Missing directory on the way to watched file is created: watch it.
+          if (!file.getParentFile().toPath().equals(dir)) {
+            rewatch.add(file);
+          }
+        }
+      }
+    }
+    if (!key.reset()) {
+      // Watched directory is removed: fall back to its parent.
+      watchKeys.remove(key);
+      rewatch.addAll(entries.values());
+      changed = true;
+    }
+    for (File file : rewatch) {
+      try {
+        watch(file);
+      } catch (IOException e) {
+        log.warn("Can't watch reference file: " + file, e);
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
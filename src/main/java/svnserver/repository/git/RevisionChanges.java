@@ -0,0 +1,177 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import svnserver.repository.VcsCopyFrom;
+import svnserver.repository.VcsLogEntry;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precomputed changed paths of revision for log requests.
+ * <p>
+ * Contains only paths, reported by log, with already resolved change type and modification flags,
+ * so log doesn't need to compare revision trees again.
+ */
+public final class RevisionChanges {
+  private static final int VERSION = 1;
+
+  public static final class Entry implements VcsLogEntry {
+    private final char change;
+    @NotNull
+    private final SVNNodeKind kind;
+    private final boolean contentModified;
+    private final boolean propertyModified;
+    private final boolean modified;
+    @Nullable
+    private final VcsCopyFrom copyFrom;
+
+    public Entry(char change, @NotNull SVNNodeKind kind, boolean contentModified, boolean propertyModified, boolean modified, @Nullable VcsCopyFrom copyFrom) {
+      this.change = change;
+      this.kind = kind;
+      this.contentModified = contentModified;
+      this.propertyModified = propertyModified;
+      this.modified = modified;
+      this.copyFrom = copyFrom;
+    }
+
+    @Override
+    public char getChange() {
+      return change;
+    }
+
+    @NotNull
+    @Override
+    public SVNNodeKind getKind() {
+      return kind;
+    }
+
+    @Override
+    public boolean isContentModified() {
+      return contentModified;
+    }
+
+    @Override
+    public boolean isPropertyModified() {
+      return propertyModified;
+    }
+
+    @Override
+    public boolean isModified() {
+      return modified;
+    }
+
+    @Nullable
+    @Override
+    public VcsCopyFrom getCopyFrom() {
+      return copyFrom;
+    }
+  }
+
+  @NotNull
+  private final Map<String, Entry> entries;
+
+  public RevisionChanges(@NotNull Map<String, Entry> entries) {
+    this.entries = Collections.unmodifiableMap(entries);
+  }
+
+  /**
+   * Resolve changes of revision.
+   *
+   * @param changes Revision changes, ordered by path.
+   * @return Changes with resolved flags. Entries without changes are omitted.
+   */
+  @NotNull
+  public static RevisionChanges create(@NotNull Map<String, ? extends VcsLogEntry> changes) throws IOException, SVNException {
+    final Map<String, Entry> entries = new LinkedHashMap<>();
+    for (Map.Entry<String, ? extends VcsLogEntry> item : changes.entrySet()) {
+      final VcsLogEntry logEntry = item.getValue();
+      final char change = logEntry.getChange();
+      if (change == 0) continue;
+      entries.put(item.getKey(), new Entry(
+          change,
+          logEntry.getKind(),
+          logEntry.isContentModified(),
+          logEntry.isPropertyModified(),
+          logEntry.isModified(),
+          logEntry.getCopyFrom()
+      ));
+    }
+    return new RevisionChanges(entries);
+  }
+
+  @NotNull
+  public Map<String, Entry> getEntries() {
+    return entries;
+  }
+
+  @NotNull
+  public byte[] save() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(stream)) {
+      output.writeInt(VERSION);
+      output.writeInt(entries.size());
+      for (Map.Entry<String, Entry> item : entries.entrySet()) {
+        final Entry entry = item.getValue();
+        output.writeUTF(item.getKey());
+        output.writeChar(entry.change);
+        output.writeBoolean(entry.kind == SVNNodeKind.DIR);
+        output.writeBoolean(entry.contentModified);
+        output.writeBoolean(entry.propertyModified);
+        output.writeBoolean(entry.modified);
+        output.writeBoolean(entry.copyFrom != null);
+        if (entry.copyFrom != null) {
+          output.writeUTF(entry.copyFrom.getPath());
+          output.writeInt(entry.copyFrom.getRevision());
+        }
+      }
+    }
+    return stream.toByteArray();
+  }
+
+  /**
+   * Load changes.
+   *
+   * @param data Serialized changes.
+   * @return Changes or null, if data has unsupported format version.
+   */
+  @Nullable
+  public static RevisionChanges load(@NotNull byte[] data) throws IOException {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+      if (input.readInt() != VERSION) {
+        return null;
+      }
+      final int count = input.readInt();
+      final Map<String, Entry> entries = new LinkedHashMap<>();
+      for (int i = 0; i < count; ++i) {
+        final String path = input.readUTF();
+        final char change = input.readChar();
+        final SVNNodeKind kind = input.readBoolean() ? SVNNodeKind.DIR : SVNNodeKind.FILE;
+        final boolean contentModified = input.readBoolean();
+        final boolean propertyModified = input.readBoolean();
+        final boolean modified = input.readBoolean();
+        final VcsCopyFrom copyFrom;
+        if (input.readBoolean()) {
+          final String copyPath = input.readUTF();
+          copyFrom = new VcsCopyFrom(input.readInt(), copyPath);
+        } else {
+          copyFrom = null;
+        }
+        entries.put(path, new Entry(change, kind, contentModified, propertyModified, modified, copyFrom));
+      }
+      return new RevisionChanges(entries);
+    }
+  }
+}
@@ -13,6 +13,7 @@ import org.tmatesoft.svn.core.SVNException;
 import svnserver.server.SessionContext;
 
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * @author Marat Radchenko <marat@slonopotamus.org>
@@ -22,9 +23,24 @@ public interface LockManagerWrite extends LockManagerRead {
   @NotNull
   LockDesc[] lock(@NotNull SessionContext context, @Nullable String comment, boolean stealLock, @NotNull LockTarget[] targets) throws SVNException, IOException;
 
+  /**
+   * Lock every target independently: failure of one target doesn't prevent locking of others.
+   *
+   * @return Lock result for every target in the same order as targets.
+   */
+  @NotNull
+  LockResult[] lockMany(@NotNull SessionContext context, @Nullable String comment, boolean stealLock, @NotNull LockTarget[] targets) throws SVNException, IOException;
+
   void unlock(@NotNull SessionContext context, boolean breakLock, @NotNull UnlockTarget[] targets) throws SVNException;
 
   void validateLocks() throws SVNException;
 
+  /**
+   * Validate only locks of the given paths.
+   *
+   * @param paths Changed paths of new revisions.
+   */
+  void validateLocks(@NotNull Collection<String> paths) throws SVNException;
+
   void renewLocks(@NotNull LockDesc[] locks) throws IOException, SVNException;
 }
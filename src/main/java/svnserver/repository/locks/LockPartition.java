@@ -0,0 +1,129 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.locks;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import svnserver.StringHelper;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locks of single repository.
+ * <p>
+ * Locks are stored by full path. Additional index by parent directory allows to get direct children locks
+ * without scanning all descendants.
+ */
+public final class LockPartition {
+  // Separator between parent directory and full path in index entry. Less than any path character.
+  private static final char INDEX_SEPARATOR = '\0';
+
+  @NotNull
+  private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+  @NotNull
+  private final SortedMap<String, LockDesc> locks;
+  @NotNull
+  private final NavigableSet<String> children;
+
+  public LockPartition(@NotNull SortedMap<String, LockDesc> locks, @NotNull NavigableSet<String> children) {
+    this.locks = locks;
+    this.children = children;
+    if (children.isEmpty() && !locks.isEmpty()) {
+      for (String path : locks.keySet()) {
+        children.add(indexKey(path));
+      }
+    }
+  }
+
+  @NotNull
+  public ReentrantReadWriteLock getReadWriteLock() {
+    return rwLock;
+  }
+
+  @Nullable
+  public LockDesc get(@NotNull String path) {
+    return locks.get(path);
+  }
+
+  public void put(@NotNull LockDesc lockDesc) {
+    locks.put(lockDesc.getPath(), lockDesc);
+    children.add(indexKey(lockDesc.getPath()));
+  }
+
+  public void remove(@NotNull String path) {
+    if (locks.remove(path) != null) {
+      children.remove(indexKey(path));
+    }
+  }
+
+  public boolean contains(@NotNull String path) {
+    return locks.containsKey(path);
+  }
+
+  /**
+   * All locks of repository.
+   */
+  @NotNull
+  public Collection<LockDesc> getAll() {
+    return locks.values();
+  }
+
+  /**
+   * Locks of path and all its descendants.
+   */
+  @NotNull
+  public Iterator<LockDesc> getRecursive(@NotNull String path) {
+    final LockDesc self = locks.get(path);
+    // All descendants have keys between "path/" and "path0" ('0' follows '/').
+    final Iterator<LockDesc> descendants = locks.subMap(path + '/', path + '0').values().iterator();
+    if (self == null) {
+      return descendants;
+    }
+    return new Iterator<LockDesc>() {
+      @Nullable
+      private LockDesc first = self;
+
+      @Override
+      public boolean hasNext() {
+        return first != null || descendants.hasNext();
+      }
+
+      @Override
+      public LockDesc next() {
+        if (first != null) {
+          final LockDesc result = first;
+          first = null;
+          return result;
+        }
+        return descendants.next();
+      }
+    };
+  }
+
+  /**
+   * Locks of direct children of the directory.
+   */
+  @NotNull
+  public Iterator<LockDesc> getChildren(@NotNull String dir) {
+    final Iterator<String> iter = children.subSet(dir + INDEX_SEPARATOR, dir + (char) (INDEX_SEPARATOR + 1)).iterator();
+    final List<LockDesc> result = new ArrayList<>();
+    while (iter.hasNext()) {
+      final LockDesc lockDesc = locks.get(iter.next().substring(dir.length() + 1));
+      if (lockDesc != null) {
+        result.add(lockDesc);
+      }
+    }
+    return result.iterator();
+  }
+
+  @NotNull
+  private static String indexKey(@NotNull String path) {
+    return StringHelper.parentDir(path) + INDEX_SEPARATOR + path;
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.locks;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+
+/**
+ * Lock result of single target in batch lock request.
+ */
+public final class LockResult {
+  @Nullable
+  private final LockDesc lock;
+  @Nullable
+  private final SVNErrorMessage error;
+
+  private LockResult(@Nullable LockDesc lock, @Nullable SVNErrorMessage error) {
+    this.lock = lock;
+    this.error = error;
+  }
+
+  @NotNull
+  public static LockResult success(@NotNull LockDesc lock) {
+    return new LockResult(lock, null);
+  }
+
+  @NotNull
+  public static LockResult failure(@NotNull SVNErrorMessage error) {
+    return new LockResult(null, error);
+  }
+
+  /**
+   * @return Created lock or null, if target can't be locked.
+   */
+  @Nullable
+  public LockDesc getLock() {
+    return lock;
+  }
+
+  @Nullable
+  public SVNErrorMessage getError() {
+    return error;
+  }
+}
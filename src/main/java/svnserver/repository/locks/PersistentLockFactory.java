@@ -17,56 +17,119 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Persistent lock manager.
+ * <p>
+ * Locks of every repository are stored in separate maps and guarded by separate locks. Lock changes are
+ * committed after work is done, but before partition lock is released. Database is not locked while work is
+ * running, so lock changes never wait for commits or lock changes of other repositories.
  *
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
 public final class PersistentLockFactory implements LockManagerFactory {
   @NotNull
   private final static Serializer<LockDesc> serializer = new CustomSerializer();
+  // Map with locks of all repositories, keyed by "uuid:path". Used only for migration.
+  @NotNull
+  private final static String LEGACY_LOCKS = "locks";
+  @NotNull
+  private final static String PARTITION_PREFIX = "locks.";
+  @NotNull
+  private final static String INDEX_SUFFIX = ".children";
 
   @NotNull
-  private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+  private final Map<String, LockPartition> partitions = new ConcurrentHashMap<>();
   @NotNull
-  private final SortedMap<String, LockDesc> map;
+  private final Object partitionLock = new Object();
   @NotNull
   private final DB db;
 
   public PersistentLockFactory(@NotNull DB db) {
     this.db = db;
-    this.map = db.createTreeMap("locks").valueSerializer(serializer).makeOrGet();
   }
 
   @NotNull
   @Override
   public <T> T wrapLockRead(@NotNull VcsRepository repo, @NotNull LockWorker<T, LockManagerRead> work) throws IOException, SVNException {
-    return wrapLock(rwLock.readLock(), repo, work);
+    final LockPartition partition = getPartition(repo.getUuid());
+    return wrapLock(partition.getReadWriteLock().readLock(), repo, partition, work);
   }
 
   @NotNull
   @Override
   public <T> T wrapLockWrite(@NotNull VcsRepository repo, @NotNull LockWorker<T, LockManagerWrite> work) throws IOException, SVNException {
-    final T result = wrapLock(rwLock.writeLock(), repo, work);
-    db.commit();
-    return result;
+    final LockPartition partition = getPartition(repo.getUuid());
+    final ReentrantReadWriteLock.WriteLock lock = partition.getReadWriteLock().writeLock();
+    lock.lock();
+    try {
+      final T result = work.exec(new TreeMapLockManager(repo, partition));
+      // Nested calls are committed by outer call.
+      if (lock.getHoldCount() == 1) {
+        db.commit();
+      }
+      return result;
+    } finally {
+      lock.unlock();
+    }
   }
 
   @NotNull
-  private <T> T wrapLock(@NotNull Lock lock, @NotNull VcsRepository repo, @NotNull LockWorker<T, ? super TreeMapLockManager> work) throws IOException, SVNException {
+  private <T> T wrapLock(@NotNull Lock lock, @NotNull VcsRepository repo, @NotNull LockPartition partition, @NotNull LockWorker<T, ? super TreeMapLockManager> work) throws IOException, SVNException {
     lock.lock();
     try {
-      return work.exec(new TreeMapLockManager(repo, map));
+      return work.exec(new TreeMapLockManager(repo, partition));
     } finally {
       lock.unlock();
     }
   }
 
+  @NotNull
+  private LockPartition getPartition(@NotNull String uuid) {
+    final LockPartition partition = partitions.get(uuid);
+    if (partition != null) {
+      return partition;
+    }
+    // Partition is loaded outside of partition map: failed load is retried on next request.
+    synchronized (partitionLock) {
+      return partitions.containsKey(uuid) ? partitions.get(uuid) : createPartition(uuid);
+    }
+  }
+
+  @NotNull
+  private LockPartition createPartition(@NotNull String uuid) {
+    final String name = PARTITION_PREFIX + uuid;
+    final SortedMap<String, LockDesc> locks = db.createTreeMap(name).valueSerializer(serializer).makeOrGet();
+    final NavigableSet<String> children = db.createTreeSet(name + INDEX_SUFFIX).makeOrGet();
+    final LockPartition partition = new LockPartition(locks, children);
+    migrateLegacyLocks(uuid, partition);
+    db.commit();
+    partitions.put(uuid, partition);
+    return partition;
+  }
+
+  private void migrateLegacyLocks(@NotNull String uuid, @NotNull LockPartition partition) {
+    if (!db.exists(LEGACY_LOCKS)) {
+      return;
+    }
+    final SortedMap<String, LockDesc> legacy = db.createTreeMap(LEGACY_LOCKS).valueSerializer(serializer).makeOrGet();
+    // Keys of repository are between "uuid:" and "uuid;" (';' follows ':').
+    final SortedMap<String, LockDesc> repoLocks = legacy.subMap(uuid + ':', uuid + ';');
+    for (LockDesc lockDesc : repoLocks.values()) {
+      partition.put(lockDesc);
+    }
+    repoLocks.clear();
+    if (legacy.isEmpty()) {
+      db.delete(LEGACY_LOCKS);
+    }
+  }
+
   public static class CustomSerializer implements Serializer<LockDesc>, Serializable {
     private final static byte VERSION = 1;
 
@@ -8,46 +8,45 @@
 package svnserver.repository.locks;
 
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.tmatesoft.svn.core.SVNException;
-import svnserver.StringHelper;
 import svnserver.repository.DepthVisitor;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 
 /**
  * Depth visitor for lock iteration.
- * *
  *
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
 public class TreeMapLockDepthVisitor implements DepthVisitor<Iterator<LockDesc>> {
   @NotNull
-  private SortedMap<String, LockDesc> locks;
+  private final LockPartition locks;
   @NotNull
-  private final String pathKey;
+  private final String path;
 
-  public TreeMapLockDepthVisitor(@NotNull SortedMap<String, LockDesc> locks, @NotNull String pathKey) {
-    this.pathKey = pathKey;
+  public TreeMapLockDepthVisitor(@NotNull LockPartition locks, @NotNull String path) {
+    this.path = path;
     this.locks = locks;
   }
 
   @NotNull
   @Override
   public Iterator<LockDesc> visitEmpty() throws SVNException {
-    final LockDesc desc = locks.get(pathKey);
+    final LockDesc desc = locks.get(path);
     return desc == null ? Collections.emptyIterator() : Arrays.asList(desc).iterator();
   }
 
   @NotNull
   @Override
   public Iterator<LockDesc> visitFiles() throws SVNException {
-    return new LockDescIterator(locks, pathKey) {
-      @Override
-      protected boolean filter(@NotNull Map.Entry<String, LockDesc> item) {
-        return pathKey.equals(item.getKey()) || pathKey.equals(StringHelper.parentDir(item.getKey()));
-      }
-    };
+    final LockDesc desc = locks.get(path);
+    if (desc != null) {
+      // Locked path is a file and can't have children.
+      return Arrays.asList(desc).iterator();
+    }
+    return locks.getChildren(path);
   }
 
   @NotNull
@@ -59,12 +58,7 @@ public class TreeMapLockDepthVisitor implements DepthVisitor<Iterator<LockDesc>>
   @NotNull
   @Override
   public Iterator<LockDesc> visitInfinity() throws SVNException {
-    return new LockDescIterator(locks, pathKey) {
-      @Override
-      protected boolean filter(@NotNull Map.Entry<String, LockDesc> item) {
-        return true;
-      }
-    };
+    return locks.getRecursive(path);
   }
 
   @NotNull
@@ -72,47 +66,4 @@ public class TreeMapLockDepthVisitor implements DepthVisitor<Iterator<LockDesc>>
   public Iterator<LockDesc> visitUnknown() {
     return Collections.emptyIterator();
   }
-
-  private static abstract class LockDescIterator implements Iterator<LockDesc> {
-    @NotNull
-    private final Iterator<Map.Entry<String, LockDesc>> iterator;
-    @NotNull
-    private final String pathKey;
-    @Nullable
-    private LockDesc nextItem;
-
-    public LockDescIterator(@NotNull SortedMap<String, LockDesc> locks, @NotNull String pathKey) {
-      this.iterator = locks.tailMap(pathKey).entrySet().iterator();
-      this.pathKey = pathKey;
-      this.nextItem = findNext();
-    }
-
-    @Override
-    public boolean hasNext() {
-      return nextItem != null;
-    }
-
-    @Override
-    public LockDesc next() {
-      LockDesc result = nextItem;
-      if (result != null) {
-        nextItem = findNext();
-      }
-      return result;
-    }
-
-    protected LockDesc findNext() {
-      while (iterator.hasNext()) {
-        Map.Entry<String, LockDesc> item = iterator.next();
-        if (StringHelper.isParentPath(pathKey, item.getKey())) {
-          if (filter(item)) {
-            return item.getValue();
-          }
-        }
-      }
-      return null;
-    }
-
-    protected abstract boolean filter(@NotNull Map.Entry<String, LockDesc> item);
-  }
 }
@@ -12,6 +12,7 @@ import org.jetbrains.annotations.Nullable;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
+import svnserver.StringHelper;
 import svnserver.repository.Depth;
 import svnserver.repository.VcsFile;
 import svnserver.repository.VcsRepository;
@@ -19,10 +20,7 @@ import svnserver.repository.VcsRevision;
 import svnserver.server.SessionContext;
 
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.UUID;
+import java.util.*;
 
 /**
  * Map lock manager.
@@ -30,14 +28,12 @@ import java.util.UUID;
  * @author Artem V. Navrotskiy <bozaro@users.noreply.github.com>
  */
 public class TreeMapLockManager implements LockManagerWrite {
-  private final static char SEPARATOR = ':';
-
   @NotNull
   private final VcsRepository repo;
   @NotNull
-  private final SortedMap<String, LockDesc> locks;
+  private final LockPartition locks;
 
-  public TreeMapLockManager(@NotNull VcsRepository repo, @NotNull SortedMap<String, LockDesc> locks) {
+  public TreeMapLockManager(@NotNull VcsRepository repo, @NotNull LockPartition locks) {
     this.locks = locks;
     this.repo = repo;
   }
@@ -47,55 +43,91 @@ public class TreeMapLockManager implements LockManagerWrite {
   public LockDesc[] lock(@NotNull SessionContext context, @Nullable String comment, boolean stealLock, @NotNull LockTarget[] targets) throws SVNException, IOException {
     final LockDesc[] result = new LockDesc[targets.length];
     if (targets.length > 0) {
-      final VcsRevision revision = repo.getLatestRevision();
+      final FileResolver resolver = new FileResolver(repo.getLatestRevision());
       // Create new locks list.
-      for (int i = 0; i < targets.length; ++i) {
-        final LockTarget target = targets[i];
-        final VcsFile file = revision.getFile(target.getPath());
-        if (file == null) {
-          throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_OUT_OF_DATE, target.getPath()));
-        }
-        if (file.isDirectory()) {
-          throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NOT_FILE, target.getPath()));
-        }
-        final LockDesc currentLock = locks.get(repo.getUuid() + SEPARATOR + target.getPath());
-        if ((!stealLock) && (currentLock != null)) {
-          throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_PATH_ALREADY_LOCKED, "Path is already locked by {1}: {0}", target.getPath(), currentLock.getOwner()));
-        }
-        if (target.getRev() < file.getLastChange().getId()) {
-          throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_OUT_OF_DATE, target.getPath()));
-        }
-        result[i] = new LockDesc(file.getFullPath(), file.getContentHash(), createLockId(), context.getUser().getUserName(), comment, 0);
+      for (int i : sortByPath(targets)) {
+        result[i] = createLock(context, comment, stealLock, resolver, targets[i]);
       }
       // Add locks.
       for (LockDesc lockDesc : result) {
-        locks.put(repo.getUuid() + SEPARATOR + lockDesc.getPath(), lockDesc);
+        locks.put(lockDesc);
       }
     }
     return result;
   }
 
+  @NotNull
+  @Override
+  public LockResult[] lockMany(@NotNull SessionContext context, @Nullable String comment, boolean stealLock, @NotNull LockTarget[] targets) throws SVNException, IOException {
+    final LockResult[] result = new LockResult[targets.length];
+    if (targets.length > 0) {
+      final FileResolver resolver = new FileResolver(repo.getLatestRevision());
+      for (int i : sortByPath(targets)) {
+        try {
+          final LockDesc lockDesc = createLock(context, comment, stealLock, resolver, targets[i]);
+          locks.put(lockDesc);
+          result[i] = LockResult.success(lockDesc);
+        } catch (SVNException e) {
+          result[i] = LockResult.failure(e.getErrorMessage());
+        }
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  private LockDesc createLock(@NotNull SessionContext context, @Nullable String comment, boolean stealLock, @NotNull FileResolver resolver, @NotNull LockTarget target) throws SVNException, IOException {
+    final VcsFile file = resolver.getFile(target.getPath());
+    if (file == null) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_OUT_OF_DATE, target.getPath()));
+    }
+    if (file.isDirectory()) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NOT_FILE, target.getPath()));
+    }
+    final LockDesc currentLock = locks.get(target.getPath());
+    if ((!stealLock) && (currentLock != null)) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_PATH_ALREADY_LOCKED, "Path is already locked by {1}: {0}", target.getPath(), currentLock.getOwner()));
+    }
+    if (target.getRev() < file.getLastChange().getId()) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_OUT_OF_DATE, target.getPath()));
+    }
+    return new LockDesc(file.getFullPath(), file.getContentHash(), createLockId(), context.getUser().getUserName(), comment, 0);
+  }
+
+  /**
+   * Target indexes in path order: targets in the same directory become neighbours.
+   */
+  @NotNull
+  private static Integer[] sortByPath(@NotNull LockTarget[] targets) {
+    final Integer[] order = new Integer[targets.length];
+    for (int i = 0; i < order.length; ++i) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> targets[a].getPath().compareTo(targets[b].getPath()));
+    return order;
+  }
+
   @NotNull
   @Override
   public Iterator<LockDesc> getLocks(@NotNull String path, @NotNull Depth depth) throws SVNException {
-    return depth.visit(new TreeMapLockDepthVisitor(locks, repo.getUuid() + SEPARATOR + path));
+    return depth.visit(new TreeMapLockDepthVisitor(locks, path));
   }
 
   @Override
   public LockDesc getLock(@NotNull String path) {
-    return locks.get(repo.getUuid() + SEPARATOR + path);
+    return locks.get(path);
   }
 
   @Override
   public void unlock(@NotNull SessionContext context, boolean breakLock, @NotNull UnlockTarget[] targets) throws SVNException {
     for (UnlockTarget target : targets) {
-      final LockDesc lock = locks.get(repo.getUuid() + SEPARATOR + target.getPath());
+      final LockDesc lock = locks.get(target.getPath());
       if ((lock == null) || (!(breakLock || lock.getToken().equals(target.getToken())))) {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_LOCK, target.getPath()));
       }
     }
     for (UnlockTarget target : targets) {
-      locks.remove(repo.getUuid() + SEPARATOR + target.getPath());
+      locks.remove(target.getPath());
     }
   }
 
@@ -103,31 +135,100 @@ public class TreeMapLockManager implements LockManagerWrite {
   public void validateLocks() throws SVNException {
     try {
       final VcsRevision revision = repo.getLatestRevision();
-      final Iterator<Map.Entry<String, LockDesc>> iter = locks.entrySet().iterator();
-      while (iter.hasNext()) {
-        final Map.Entry<String, LockDesc> entry = iter.next();
-        final LockDesc item = entry.getValue();
-        final VcsFile file = revision.getFile(item.getPath());
-        if ((file == null) || file.isDirectory() || (!item.getHash().equals(file.getContentHash()))) {
-          iter.remove();
+      final List<String> invalid = new ArrayList<>();
+      for (LockDesc item : locks.getAll()) {
+        if (!isValid(revision, item)) {
+          invalid.add(item.getPath());
         }
       }
+      for (String path : invalid) {
+        locks.remove(path);
+      }
     } catch (IOException e) {
       throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e));
     }
   }
 
+  @Override
+  public void validateLocks(@NotNull Collection<String> paths) throws SVNException {
+    try {
+      final VcsRevision revision = repo.getLatestRevision();
+      for (String path : paths) {
+        final LockDesc item = locks.get(path);
+        if ((item != null) && (!isValid(revision, item))) {
+          locks.remove(path);
+        }
+      }
+    } catch (IOException e) {
+      throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e));
+    }
+  }
+
+  private static boolean isValid(@NotNull VcsRevision revision, @NotNull LockDesc item) throws IOException, SVNException {
+    final VcsFile file = revision.getFile(item.getPath());
+    return (file != null) && (!file.isDirectory()) && item.getHash().equals(file.getContentHash());
+  }
+
   @Override
   public void renewLocks(@NotNull LockDesc[] lockDescs) throws IOException, SVNException {
     final VcsRevision revision = repo.getLatestRevision();
     for (LockDesc lockDesc : lockDescs) {
-      final String pathKey = repo.getUuid() + SEPARATOR + lockDesc.getPath();
-      if (!locks.containsKey(pathKey)) {
+      if (!locks.contains(lockDesc.getPath())) {
         final VcsFile file = revision.getFile(lockDesc.getPath());
         if ((file != null) && (!file.isDirectory())) {
-          locks.put(pathKey, new LockDesc(lockDesc.getPath(), file.getContentHash(), lockDesc.getToken(), lockDesc.getOwner(), lockDesc.getComment(), lockDesc.getCreated()));
+          locks.put(new LockDesc(lockDesc.getPath(), file.getContentHash(), lockDesc.getToken(), lockDesc.getOwner(), lockDesc.getComment(), lockDesc.getCreated()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Resolves files of single revision in path order, reusing already resolved parent directories.
+   */
+  private static final class FileResolver {
+    @NotNull
+    private final VcsRevision revision;
+    // Resolved directories from root to the last resolved path.
+    @NotNull
+    private final Deque<VcsFile> dirs = new ArrayDeque<>();
+
+    private FileResolver(@NotNull VcsRevision revision) {
+      this.revision = revision;
+    }
+
+    @Nullable
+    public VcsFile getFile(@NotNull String path) throws IOException, SVNException {
+      final String fullPath = StringHelper.normalize(path);
+      if (dirs.isEmpty()) {
+        final VcsFile root = revision.getFile("");
+        if (root == null) {
+          return null;
         }
+        dirs.push(root);
       }
+      while (dirs.size() > 1 && !StringHelper.isParentPath(getPath(dirs.peek()), fullPath)) {
+        dirs.pop();
+      }
+      VcsFile dir = dirs.peek();
+      final String dirPath = getPath(dir);
+      if (fullPath.equals(dirPath)) {
+        return dir;
+      }
+      final String[] names = fullPath.substring(dirPath.length() + 1).split("/");
+      for (int i = 0; i < names.length - 1; ++i) {
+        final VcsFile child = dir.getEntry(names[i]);
+        if ((child == null) || (!child.isDirectory())) {
+          return null;
+        }
+        dirs.push(child);
+        dir = child;
+      }
+      return dir.getEntry(names[names.length - 1]);
+    }
+
+    @NotNull
+    private static String getPath(@NotNull VcsFile file) {
+      return StringHelper.normalize(file.getFullPath());
     }
   }
 
@@ -16,6 +16,7 @@ import svnserver.repository.RepositoryInfo;
 import svnserver.repository.VcsRepository;
 import svnserver.repository.VcsRepositoryMapping;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
@@ -46,6 +47,13 @@ public class RepositoryListMapping implements VcsRepositoryMapping {
     return null;
   }
 
+  @Override
+  public void close() throws IOException {
+    for (VcsRepository repository : mapping.values()) {
+      repository.close();
+    }
+  }
+
   @Nullable
   public static <T> Map.Entry<String, T> getMapped(@NotNull NavigableMap<String, T> mapping, @NotNull String prefix) {
     final Map.Entry<String, T> entry = mapping.floorEntry(StringHelper.normalize(prefix));
@@ -0,0 +1,26 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+/**
+ * Client connection processing mode.
+ */
+public enum ConnectionMode {
+  /**
+   * Every connection is served by own thread for the whole connection lifetime.
+   */
+  THREAD,
+  /**
+   * Idle connections are waiting for the next command in selector.
+   * Commands are executed by bounded worker pool.
+   * <p>
+   * Connection is given to worker after the whole command is received. If command needs more data from client
+   * (authentication, commit), worker waits for it with connection timeout.
+   */
+  NIO
+}
@@ -0,0 +1,182 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mapdb.Atomic;
+import org.mapdb.DB;
+import svnserver.BoundedCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache of encoded svndiff deltas between file contents.
+ * <p>
+ * Delta is keyed by content hashes of source and target files and stored as sequence of encoded
+ * textdelta-chunk payloads. Recently used deltas are kept in memory, all cached deltas are also stored in
+ * persistent cache with bounded total size. Oldest deltas are removed from persistent cache first.
+ * <p>
+ * Persistent cache changes are not committed on every new delta: {@link #commit()} should be called after
+ * sending of all deltas.
+ */
+public final class DeltaCache {
+  // Maximum size of cached delta.
+  private static final int MAX_DELTA_SIZE = 4 * 1024 * 1024;
+  // Delta cache with entry count limit, replaced by size limited cache.
+  @NotNull
+  private static final String LEGACY_CACHE = "cache.delta";
+  @NotNull
+  private static final String PERSISTENT_CACHE = "cache.deltas";
+
+  @NotNull
+  private final DB cacheDb;
+  @NotNull
+  private final BoundedCache<String, byte[]> memoryCache;
+  private final long persistentSize;
+  @Nullable
+  private final Map<String, byte[]> persistentCache;
+  // Persistent cache keys in insertion order.
+  @Nullable
+  private final NavigableMap<Long, String> persistentOrder;
+  @Nullable
+  private final Atomic.Long persistentUsed;
+  @NotNull
+  private final AtomicBoolean dirty = new AtomicBoolean();
+
+  public DeltaCache(@NotNull DB cacheDb, long memorySize, long persistentSize) {
+    this.cacheDb = cacheDb;
+    this.memoryCache = new BoundedCache<>(memorySize, (key, value) -> value.length);
+    this.persistentSize = persistentSize;
+    if (cacheDb.exists(LEGACY_CACHE)) {
+      cacheDb.delete(LEGACY_CACHE);
+      cacheDb.commit();
+    }
+    if (persistentSize > 0) {
+      this.persistentCache = cacheDb.createHashMap(PERSISTENT_CACHE).makeOrGet();
+      this.persistentOrder = cacheDb.createTreeMap(PERSISTENT_CACHE + ".order").makeOrGet();
+      this.persistentUsed = cacheDb.getAtomicLong(PERSISTENT_CACHE + ".size");
+    } else {
+      this.persistentCache = null;
+      this.persistentOrder = null;
+      this.persistentUsed = null;
+    }
+  }
+
+  @NotNull
+  public static String getKey(@Nullable String sourceHash, @NotNull String targetHash, boolean compress) {
+    return (compress ? "1:" : "0:") + (sourceHash == null ? "" : sourceHash) + ":" + targetHash;
+  }
+
+  @Nullable
+  public byte[] get(@NotNull String key) {
+    byte[] delta = memoryCache.getIfPresent(key);
+    if (delta == null && persistentCache != null) {
+      delta = persistentCache.get(key);
+      if (delta != null) {
+        memoryCache.put(key, delta);
+      }
+    }
+    return delta;
+  }
+
+  public void put(@NotNull String key, @NotNull byte[] delta) {
+    memoryCache.put(key, delta);
+    if (persistentCache == null || persistentOrder == null || persistentUsed == null || delta.length > persistentSize) {
+      return;
+    }
+    synchronized (persistentOrder) {
+      if (persistentCache.containsKey(key)) {
+        return;
+      }
+      persistentCache.put(key, delta);
+      persistentOrder.put(persistentOrder.isEmpty() ? 0L : persistentOrder.lastKey() + 1, key);
+      long used = persistentUsed.addAndGet(delta.length);
+      while (used > persistentSize) {
+        final Map.Entry<Long, String> oldest = persistentOrder.pollFirstEntry();
+        if (oldest == null) {
+          persistentUsed.set(0);
+          break;
+        }
+        final byte[] removed = persistentCache.remove(oldest.getValue());
+        if (removed != null) {
+          used = persistentUsed.addAndGet(-removed.length);
+        }
+      }
+      dirty.set(true);
+    }
+  }
+
+  /**
+   * Commit persistent cache changes.
+   */
+  public void commit() {
+    if (dirty.compareAndSet(true, false)) {
+      cacheDb.commit();
+    }
+  }
+
+  /**
+   * Send every chunk of cached delta to consumer.
+   */
+  public static void forEachChunk(@NotNull byte[] delta, @NotNull ChunkConsumer consumer) throws IOException {
+    int offset = 0;
+    while (offset < delta.length) {
+      final int length = ((delta[offset] & 0xFF) << 24) | ((delta[offset + 1] & 0xFF) << 16) | ((delta[offset + 2] & 0xFF) << 8) | (delta[offset + 3] & 0xFF);
+      consumer.accept(delta, offset + 4, length);
+      offset += 4 + length;
+    }
+  }
+
+  @NotNull
+  public BoundedCache<String, byte[]> getMemoryCache() {
+    return memoryCache;
+  }
+
+  @FunctionalInterface
+  public interface ChunkConsumer {
+    void accept(@NotNull byte[] data, int offset, int length) throws IOException;
+  }
+
+  /**
+   * Collects delta chunks while delta is sent to client.
+   */
+  public static final class Recorder {
+    @Nullable
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    public void add(@NotNull byte[] chunk) throws IOException {
+      if (buffer == null) {
+        return;
+      }
+      if (buffer.size() + chunk.length + 4 > MAX_DELTA_SIZE) {
+        // Too large delta: don't waste memory on it.
+        buffer = null;
+        return;
+      }
+      final DataOutputStream output = new DataOutputStream(buffer);
+      output.writeInt(chunk.length);
+      output.write(chunk);
+    }
+
+    /**
+     * Recorded delta.
+     *
+     * @return Delta or null, if delta is too large for cache.
+     */
+    @Nullable
+    public byte[] toByteArray() {
+      return buffer == null ? null : buffer.toByteArray();
+    }
+  }
+}
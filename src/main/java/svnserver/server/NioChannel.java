@@ -0,0 +1,185 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import svnserver.parser.MessageScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Streams over non-blocking socket channel for {@link ConnectionMode#NIO} mode.
+ * <p>
+ * Streams wait for client at most given timeout, so stalled client can't hold worker thread forever.
+ * All received data is scanned for message boundaries: connection can wait in selector until complete
+ * message is received.
+ */
+final class NioChannel {
+  private static final int BUFFER_SIZE = 32 * 1024;
+  // Buffered data limit for waiting message end in selector.
+  private static final int MAX_PENDING_SIZE = 1024 * 1024;
+
+  @NotNull
+  private final SocketChannel channel;
+  private final long timeout;
+  @NotNull
+  private final MessageScanner scanner = new MessageScanner();
+  @NotNull
+  private final InputStream inputStream = new ChannelInputStream();
+  @NotNull
+  private final OutputStream outputStream = new ChannelOutputStream();
+  // Received data in read mode.
+  @NotNull
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  // Selector for waiting of channel while command is executed.
+  @Nullable
+  private Selector ioSelector;
+
+  NioChannel(@NotNull SocketChannel channel, long timeout) throws IOException {
+    this.channel = channel;
+    this.timeout = timeout;
+    channel.configureBlocking(false);
+    buffer.flip();
+  }
+
+  @NotNull
+  public InputStream getInputStream() {
+    return inputStream;
+  }
+
+  @NotNull
+  public OutputStream getOutputStream() {
+    return outputStream;
+  }
+
+  /**
+   * Read already received data without blocking.
+   *
+   * @return Count of read bytes or -1 on end of stream.
+   */
+  public int fill() throws IOException {
+    buffer.compact();
+    try {
+      if (!buffer.hasRemaining()) {
+        final ByteBuffer newBuffer = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+      }
+      final int offset = buffer.position();
+      final int read = channel.read(buffer);
+      if (read > 0) {
+        scanner.scan(buffer.array(), offset, read);
+      }
+      return read;
+    } finally {
+      buffer.flip();
+    }
+  }
+
+  /**
+   * Check for complete message, which is not read by parser yet.
+   *
+   * @param parserBuffered Data size, which is already read from stream, but is not parsed yet.
+   * @return True, if there is complete message or too much data is waiting for message end.
+   */
+  public boolean hasMessage(int parserBuffered) {
+    final int pending = buffer.remaining() + parserBuffered;
+    return scanner.getMessageEnd() > scanner.getPosition() - pending || pending >= MAX_PENDING_SIZE;
+  }
+
+  /**
+   * Release resources, which are used only while command is executed.
+   */
+  public void release() throws IOException {
+    if (buffer.capacity() > BUFFER_SIZE && buffer.remaining() <= BUFFER_SIZE) {
+      final ByteBuffer newBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+      newBuffer.put(buffer);
+      newBuffer.flip();
+      buffer = newBuffer;
+    }
+    if (ioSelector != null) {
+      ioSelector.close();
+      ioSelector = null;
+    }
+  }
+
+  private void await(int ops) throws IOException {
+    if (ioSelector == null) {
+      ioSelector = Selector.open();
+    }
+    SelectionKey key = channel.keyFor(ioSelector);
+    if (key == null) {
+      key = channel.register(ioSelector, ops);
+    } else {
+      key.interestOps(ops);
+    }
+    final int selected = ioSelector.select(timeout);
+    ioSelector.selectedKeys().clear();
+    if (selected == 0) {
+      throw new SocketTimeoutException("Client is not responding for " + timeout + " ms");
+    }
+  }
+
+  private final class ChannelInputStream extends InputStream {
+    @Override
+    public int read() throws IOException {
+      final byte[] data = new byte[1];
+      return read(data, 0, 1) < 0 ? -1 : data[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NotNull byte[] data, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      while (!buffer.hasRemaining()) {
+        final int read = fill();
+        if (read < 0) {
+          return -1;
+        }
+        if (read == 0) {
+          await(SelectionKey.OP_READ);
+        }
+      }
+      final int size = Math.min(length, buffer.remaining());
+      buffer.get(data, offset, size);
+      return size;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
+  private final class ChannelOutputStream extends OutputStream {
+    @Override
+    public void write(int data) throws IOException {
+      write(new byte[]{(byte) data}, 0, 1);
+    }
+
+    @Override
+    public void write(@NotNull byte[] data, int offset, int length) throws IOException {
+      final ByteBuffer output = ByteBuffer.wrap(data, offset, length);
+      while (output.hasRemaining()) {
+        if (channel.write(output) == 0) {
+          await(SelectionKey.OP_WRITE);
+        }
+      }
+    }
+  }
+}
@@ -25,6 +25,7 @@ import svnserver.server.step.Step;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * SVN client session context.
@@ -123,6 +124,10 @@ public final class SessionContext {
     return stepStack.poll();
   }
 
+  public boolean hasSteps() {
+    return !stepStack.isEmpty();
+  }
+
   /**
    * Get repository file.
    *
@@ -144,6 +149,16 @@ public final class SessionContext {
     return getRepository().getRevisionInfo(rev).getFile(path);
   }
 
+  @NotNull
+  public DeltaCache getDeltaCache() {
+    return server.getDeltaCache();
+  }
+
+  @NotNull
+  public Executor getCommitExecutor() {
+    return server.getCommitExecutor();
+  }
+
   public void checkAcl(@NotNull String path) throws SVNException {
     server.getAcl().check(user, path);
   }
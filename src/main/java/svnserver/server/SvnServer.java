@@ -8,6 +8,7 @@
 package svnserver.server;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mapdb.DB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,22 +34,14 @@ import svnserver.server.msg.AuthReq;
 import svnserver.server.msg.ClientInfo;
 import svnserver.server.step.Step;
 
-import java.io.BufferedOutputStream;
-import java.io.EOFException;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.net.InetAddress;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -61,6 +54,7 @@ public class SvnServer extends Thread {
   @NotNull
   private static final Logger log = LoggerFactory.getLogger(SvnServer.class);
   private static final long FORCE_SHUTDOWN = TimeUnit.SECONDS.toMillis(5);
+  private static final int MIN_WORKER_THREADS = 16;
   @NotNull
   private final UserDB userDB;
   @NotNull
@@ -74,10 +68,18 @@ public class SvnServer extends Thread {
   @NotNull
   private final DB cacheDb;
   @NotNull
-  private final ServerSocket serverSocket;
+  private final DeltaCache deltaCache;
+  @NotNull
+  private final ServerSocketChannel serverSocket;
+  @Nullable
+  private final Selector selector;
+  @NotNull
+  private final Queue<NioConnection> idleConnections = new ConcurrentLinkedQueue<>();
   @NotNull
   private final ExecutorService poolExecutor;
   @NotNull
+  private final ExecutorService commitExecutor;
+  @NotNull
   private final ACL acl;
   @NotNull
   private final AtomicBoolean stopped = new AtomicBoolean(false);
@@ -90,6 +92,7 @@ public class SvnServer extends Thread {
 
     cacheDb = config.getCacheConfig().createCache(basePath);
     userDB = config.getUserDB().create(basePath);
+    deltaCache = new DeltaCache(cacheDb, config.getDeltaCacheMemory(), config.getDeltaCacheSize());
 
     commands.put("commit", new CommitCmd());
     commands.put("diff", new DeltaCmd(DiffParams.class));
@@ -121,24 +124,50 @@ public class SvnServer extends Thread {
 
     repositoryMapping = config.getRepositoryMapping().create(basePath, cacheDb);
     acl = new ACL(config.getAcl());
-    serverSocket = new ServerSocket(config.getPort(), 0, InetAddress.getByName(config.getHost()));
-    serverSocket.setReuseAddress(config.getReuseAddress());
+    serverSocket = ServerSocketChannel.open();
+    serverSocket.socket().setReuseAddress(config.getReuseAddress());
+    serverSocket.bind(new InetSocketAddress(InetAddress.getByName(config.getHost()), config.getPort()));
 
-    poolExecutor = Executors.newCachedThreadPool();
-    log.info("Server bind: {}", serverSocket.getLocalSocketAddress());
+    switch (config.getConnectionMode()) {
+      case NIO:
+        final int workerThreads = config.getWorkerThreads() > 0 ? config.getWorkerThreads() : Math.max(MIN_WORKER_THREADS, Runtime.getRuntime().availableProcessors() * 4);
+        selector = Selector.open();
+        serverSocket.configureBlocking(false);
+        serverSocket.register(selector, SelectionKey.OP_ACCEPT);
+        poolExecutor = Executors.newFixedThreadPool(workerThreads);
+        log.info("Connection mode: {} ({} worker threads)", config.getConnectionMode(), workerThreads);
+        break;
+      default:
+        selector = null;
+        poolExecutor = Executors.newCachedThreadPool();
+        log.info("Connection mode: {}", config.getConnectionMode());
+        break;
+    }
+    final int commitThreads = config.getCommitThreads() > 0 ? config.getCommitThreads() : Runtime.getRuntime().availableProcessors();
+    commitExecutor = Executors.newFixedThreadPool(commitThreads);
+    log.info("Commit file processing threads: {}", commitThreads);
+    log.info("Server bind: {}", serverSocket.socket().getLocalSocketAddress());
   }
 
   public int getPort() {
-    return serverSocket.getLocalPort();
+    return serverSocket.socket().getLocalPort();
   }
 
   @Override
   public void run() {
-    log.info("Server is ready on port: {}", serverSocket.getLocalPort());
+    log.info("Server is ready on port: {}", getPort());
+    if (selector != null) {
+      runSelector(selector);
+    } else {
+      runThreads();
+    }
+  }
+
+  private void runThreads() {
     while (!stopped.get()) {
       final Socket client;
       try {
-        client = this.serverSocket.accept();
+        client = this.serverSocket.accept().socket();
       } catch (IOException e) {
         if (stopped.get()) {
           log.info("Server Stopped");
@@ -148,20 +177,124 @@ public class SvnServer extends Thread {
         continue;
       }
       long sessionId = lastSessionId.incrementAndGet();
-      poolExecutor.execute(() -> {
-        log.info("New connection from: {}", client.getRemoteSocketAddress());
-        try (Socket clientSocket = client) {
-          connections.put(sessionId, client);
-          serveClient(clientSocket);
-        } catch (EOFException | SocketException ignore) {
-          // client disconnect is not a error
-        } catch (SVNException | IOException e) {
-          log.info("Client error:", e);
-        } finally {
-          connections.remove(sessionId);
-          log.info("Connection from {} closed", client.getRemoteSocketAddress());
+      try {
+        poolExecutor.execute(() -> {
+          log.info("New connection from: {}", client.getRemoteSocketAddress());
+          try (Socket clientSocket = client) {
+            connections.put(sessionId, client);
+            serveClient(clientSocket);
+          } catch (EOFException | SocketException ignore) {
+            // client disconnect is not a error
+          } catch (SVNException | IOException e) {
+            log.info("Client error:", e);
+          } finally {
+            connections.remove(sessionId);
+            log.info("Connection from {} closed", client.getRemoteSocketAddress());
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // Closed server socket channel can still return already queued connection.
+        try {
+          client.close();
+        } catch (IOException ignored) {
         }
-      });
+      }
+    }
+  }
+
+  private void runSelector(@NotNull Selector selector) {
+    final List<NioConnection> ready = new ArrayList<>();
+    try {
+      while (!stopped.get()) {
+        if (selector.selectedKeys().isEmpty()) {
+          selector.select();
+        }
+        while (true) {
+          final NioConnection connection = idleConnections.poll();
+          if (connection == null) break;
+          try {
+            connection.channel.register(selector, SelectionKey.OP_READ, connection);
+          } catch (IOException e) {
+            connection.close();
+          }
+        }
+        final Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+        while (iter.hasNext()) {
+          final SelectionKey key = iter.next();
+          iter.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            acceptClient();
+          } else if (key.isReadable()) {
+            key.cancel();
+            ready.add((NioConnection) key.attachment());
+          }
+        }
+        if (!ready.isEmpty()) {
+          // Cancelled key should be removed from selector before connection is registered again.
+          selector.selectNow();
+          for (NioConnection connection : ready) {
+            connection.execute();
+          }
+          ready.clear();
+        }
+      }
+    } catch (ClosedSelectorException ignored) {
+    } catch (IOException e) {
+      if (!stopped.get()) {
+        log.error("Selector error", e);
+      }
+    } finally {
+      // Idle connections are waiting for next command: they can be closed without waiting.
+      for (SelectionKey key : selector.keys()) {
+        if (key.attachment() instanceof NioConnection) {
+          ((NioConnection) key.attachment()).close();
+        }
+      }
+      closeIdleConnections();
+      try {
+        selector.close();
+      } catch (IOException e) {
+        log.warn("Can't close selector", e);
+      }
+      log.info("Server Stopped");
+    }
+  }
+
+  private void acceptClient() {
+    final SocketChannel channel;
+    try {
+      channel = serverSocket.accept();
+    } catch (IOException e) {
+      log.error("Error accepting client connection", e);
+      return;
+    }
+    if (channel == null) {
+      return;
+    }
+    final NioConnection connection;
+    try {
+      connection = new NioConnection(lastSessionId.incrementAndGet(), channel);
+    } catch (IOException e) {
+      log.error("Error accepting client connection", e);
+      try {
+        channel.close();
+      } catch (IOException ignored) {
+      }
+      return;
+    }
+    log.info("New connection from: {}", connection.socket.getRemoteSocketAddress());
+    connections.put(connection.sessionId, connection.socket);
+    connection.execute();
+  }
+
+  private void closeIdleConnections() {
+    while (true) {
+      final NioConnection connection = idleConnections.poll();
+      if (connection == null) break;
+      connection.close();
     }
   }
 
@@ -170,58 +303,97 @@ public class SvnServer extends Thread {
     final SvnServerWriter writer = new SvnServerWriter(new BufferedOutputStream(socket.getOutputStream()));
     final SvnServerParser parser = new SvnServerParser(socket.getInputStream());
 
-    final ClientInfo clientInfo = exchangeCapabilities(parser, writer);
+    sendCapabilities(writer);
+    final SessionContext context = openSession(parser, writer);
+    if (context == null) {
+      return;
+    }
+    while (!isInterrupted()) {
+      serveStep(context);
+    }
+  }
+
+  /**
+   * Initialize client session after capabilities announce: client info, authentication and repository announce.
+   *
+   * @return Session context or null, if session is rejected.
+   */
+  @Nullable
+  private SessionContext openSession(@NotNull SvnServerParser parser, @NotNull SvnServerWriter writer) throws IOException, SVNException {
+    final ClientInfo clientInfo = readClientInfo(parser);
     final RepositoryInfo repositoryInfo = repositoryMapping.getRepository(clientInfo.getUrl());
     if (repositoryInfo == null) {
       BaseCmd.sendError(writer, SVNErrorMessage.create(SVNErrorCode.RA_SVN_REPOS_NOT_FOUND, "Repository not found: " + clientInfo.getUrl()));
-      return;
+      return null;
     }
     final User user = authenticate(parser, writer, repositoryInfo);
     log.info("User: {}", user);
 
     final SessionContext context = new SessionContext(parser, writer, this, repositoryInfo, clientInfo, user);
+    // Watched repository updates revisions itself, so session uses already published revisions.
     final VcsRepository repository = context.getRepository();
-    repository.updateRevisions();
+    if (!repository.isWatchingRevisions()) {
+      repository.updateRevisions();
+    }
     sendAnnounce(writer, repositoryInfo);
+    return context;
+  }
 
-    while (!isInterrupted()) {
-      try {
-        Step step = context.poll();
-        if (step != null) {
-          step.process(context);
-          continue;
-        }
+  /**
+   * Process next pending step or read and process next client command.
+   */
+  private void serveStep(@NotNull SessionContext context) throws IOException {
+    final SvnServerParser parser = context.getParser();
+    final SvnServerWriter writer = context.getWriter();
+    try {
+      Step step = context.poll();
+      if (step != null) {
+        step.process(context);
+        return;
+      }
 
-        final SvnServerToken token = parser.readToken();
-        if (token != ListBeginToken.instance) {
-          throw new IOException("Unexpected token: " + token);
-        }
-        final String cmd = parser.readText();
-        BaseCmd command = commands.get(cmd);
-        if (command != null) {
-          log.info("Receive command: {}", cmd);
-          Object param = MessageParser.parse(command.getArguments(), parser);
-          parser.readToken(ListEndToken.class);
-          //noinspection unchecked
-          command.process(context, param);
-        } else {
-          log.warn("Unsupported command: {}", cmd);
-          BaseCmd.sendError(writer, SVNErrorMessage.create(SVNErrorCode.RA_SVN_UNKNOWN_CMD, "Unsupported command: " + cmd));
-          parser.skipItems();
-        }
-      } catch (SVNException e) {
-        log.error("Command execution error", e);
-        BaseCmd.sendError(writer, e.getErrorMessage());
+      final SvnServerToken token = parser.readToken();
+      if (token != ListBeginToken.instance) {
+        throw new IOException("Unexpected token: " + token);
+      }
+      final String cmd = parser.readText();
+      BaseCmd command = commands.get(cmd);
+      if (command != null) {
+        log.info("Receive command: {}", cmd);
+        Object param = MessageParser.parse(command.getArguments(), parser);
+        parser.readToken(ListEndToken.class);
+        //noinspection unchecked
+        command.process(context, param);
+      } else {
+        log.warn("Unsupported command: {}", cmd);
+        BaseCmd.sendError(writer, SVNErrorMessage.create(SVNErrorCode.RA_SVN_UNKNOWN_CMD, "Unsupported command: " + cmd));
+        parser.skipItems();
       }
+    } catch (SVNException e) {
+      log.error("Command execution error", e);
+      BaseCmd.sendError(writer, e.getErrorMessage());
     }
   }
 
+  @NotNull
+  public DeltaCache getDeltaCache() {
+    return deltaCache;
+  }
+
+  /**
+   * Executor for file content processing of commits.
+   */
+  @NotNull
+  public Executor getCommitExecutor() {
+    return commitExecutor;
+  }
+
   @NotNull
   public ACL getAcl() {
     return acl;
   }
 
-  private ClientInfo exchangeCapabilities(SvnServerParser parser, SvnServerWriter writer) throws IOException, SVNException {
+  private void sendCapabilities(@NotNull SvnServerWriter writer) throws IOException {
     // Анонсируем поддерживаемые функции.
     writer
         .listBegin()
@@ -243,7 +415,10 @@ public class SvnServer extends Thread {
         .listEnd()
         .listEnd()
         .listEnd();
+  }
 
+  @NotNull
+  private ClientInfo readClientInfo(@NotNull SvnServerParser parser) throws IOException, SVNException {
     // Читаем информацию о клиенте.
     final ClientInfo clientInfo = MessageParser.parse(ClientInfo.class, parser);
     if (clientInfo.getProtocolVersion() != 2) {
@@ -321,6 +496,9 @@ public class SvnServer extends Thread {
     if (stopped.compareAndSet(false, true)) {
       log.info("Shutdown server");
       serverSocket.close();
+      if (selector != null) {
+        selector.wakeup();
+      }
       poolExecutor.shutdown();
     }
   }
@@ -330,7 +508,10 @@ public class SvnServer extends Thread {
     if (!poolExecutor.awaitTermination(millis, TimeUnit.MILLISECONDS)) {
       forceShutdown();
     }
+    commitExecutor.shutdown();
+    commitExecutor.awaitTermination(FORCE_SHUTDOWN, TimeUnit.MILLISECONDS);
     join(millis);
+    repositoryMapping.close();
     cacheDb.close();
     log.info("Server shutdowned");
   }
@@ -342,4 +523,101 @@ public class SvnServer extends Thread {
     poolExecutor.awaitTermination(FORCE_SHUTDOWN, TimeUnit.MILLISECONDS);
   }
 
+  /**
+   * Connection for {@link ConnectionMode#NIO} mode.
+   * <p>
+   * Connection waits in selector until complete message is received, so idle and slow clients don't hold
+   * worker threads. Received message is processed by worker thread. If command needs more data, worker waits for
+   * it at most {@link Config#getConnectionTimeout()}.
+   */
+  private final class NioConnection implements Runnable {
+    private final long sessionId;
+    @NotNull
+    private final SocketChannel channel;
+    @NotNull
+    private final Socket socket;
+    @NotNull
+    private final NioChannel nioChannel;
+    @NotNull
+    private final SvnServerParser parser;
+    @NotNull
+    private final SvnServerWriter writer;
+    private boolean announced;
+    @Nullable
+    private SessionContext context;
+
+    private NioConnection(long sessionId, @NotNull SocketChannel channel) throws IOException {
+      this.sessionId = sessionId;
+      this.channel = channel;
+      this.socket = channel.socket();
+      this.nioChannel = new NioChannel(channel, config.getConnectionTimeout());
+      this.parser = new SvnServerParser(nioChannel.getInputStream());
+      this.writer = new SvnServerWriter(nioChannel.getOutputStream());
+    }
+
+    private void execute() {
+      try {
+        poolExecutor.execute(this);
+      } catch (RejectedExecutionException e) {
+        close();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (!announced) {
+          socket.setTcpNoDelay(true);
+          sendCapabilities(writer);
+          announced = true;
+        }
+        if (nioChannel.fill() < 0 && !parser.hasBufferedData()) {
+          throw new EOFException();
+        }
+        // Client can send next command together with previous one: it's already buffered.
+        while (nioChannel.hasMessage(parser.getBufferedSize())) {
+          if (context == null) {
+            context = openSession(parser, writer);
+            if (context == null) {
+              close();
+              return;
+            }
+          } else {
+            do {
+              serveStep(context);
+            } while (context.hasSteps());
+          }
+          nioChannel.fill();
+        }
+        nioChannel.release();
+        idleConnections.add(this);
+        if (stopped.get()) {
+          closeIdleConnections();
+        } else if (selector != null) {
+          selector.wakeup();
+        }
+      } catch (EOFException | SocketException | ClosedChannelException ignore) {
+        // client disconnect is not a error
+        close();
+      } catch (SVNException | IOException e) {
+        log.info("Client error:", e);
+        close();
+      } catch (RuntimeException e) {
+        log.error("Client error:", e);
+        close();
+      }
+    }
+
+    private void close() {
+      if (connections.remove(sessionId) != null) {
+        log.info("Connection from {} closed", socket.getRemoteSocketAddress());
+      }
+      try {
+        nioChannel.release();
+        channel.close();
+      } catch (IOException e) {
+        log.warn("Can't close connection", e);
+      }
+    }
+  }
 }
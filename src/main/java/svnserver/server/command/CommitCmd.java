@@ -33,6 +33,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Commit client changes.
@@ -207,6 +211,8 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
   }
 
   private static final int MAX_PASS_COUNT = 10;
+  // Maximum size of received, but not applied yet delta chunks.
+  private static final long MAX_PENDING_BYTES = 16 * 1024 * 1024;
   @NotNull
   private static final Logger log = LoggerFactory.getLogger(DeltaCmd.class);
 
@@ -230,14 +236,54 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
     pipeline.editorCommand(context);
   }
 
+  /**
+   * File content and property updater.
+   * <p>
+   * File operations (delta application, blob insertion, property changes) are executed in order on server commit
+   * executor, so connection thread can parse next editor commands without waiting for them.
+   */
   private static class FileUpdater {
     @NotNull
     private final VcsDeltaConsumer deltaConsumer;
     @NotNull
+    private final Executor executor;
+    @NotNull
     private final SVNDeltaReader reader = new SVNDeltaReader();
+    // Last submitted file operation.
+    @NotNull
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
 
-    public FileUpdater(@NotNull VcsDeltaConsumer deltaConsumer) {
+    public FileUpdater(@NotNull VcsDeltaConsumer deltaConsumer, @NotNull Executor executor) {
       this.deltaConsumer = deltaConsumer;
+      this.executor = executor;
+    }
+
+    public void submit(@NotNull VcsConsumer<FileUpdater> action) {
+      tail = tail.thenRunAsync(() -> {
+        try {
+          action.accept(this);
+        } catch (SVNException | IOException e) {
+          throw new CompletionException(e);
+        }
+      }, executor);
+    }
+
+    /**
+     * Wait for completion of all submitted operations.
+     */
+    public void await() throws SVNException, IOException {
+      try {
+        tail.join();
+      } catch (CompletionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof SVNException) {
+          throw (SVNException) cause;
+        }
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw e;
+      }
     }
   }
 
@@ -282,6 +328,12 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
     private final Map<String, EntryUpdater> paths;
     @NotNull
     private final Map<String, FileUpdater> files;
+    // All file updaters, including closed.
+    @NotNull
+    private final List<FileUpdater> updaters = new ArrayList<>();
+    // Size of received, but not applied yet delta chunks.
+    @NotNull
+    private final AtomicLong pendingBytes = new AtomicLong();
     @NotNull
     private final Map<String, String> locks;
     private boolean keepLocks;
@@ -331,7 +383,7 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
     }
 
     private void changeFileProp(@NotNull SessionContext context, @NotNull ChangePropParams args) throws SVNException {
-      changeProp(getFile(args.token).deltaConsumer.getProperties(), args);
+      getFile(args.token).submit(file -> changeProp(file.deltaConsumer.getProperties(), args));
     }
 
     private void changeProp(@NotNull Map<String, String> props, @NotNull ChangePropParams args) {
@@ -433,7 +485,7 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
         log.info("Add file: {} (rev: {})", parent);
         deltaConsumer = context.getRepository().createFile();
       }
-      files.put(args.token, new FileUpdater(deltaConsumer));
+      addFileUpdater(context, args.token, deltaConsumer);
       parent.changes.add(treeBuilder -> treeBuilder.saveFile(StringHelper.baseName(args.name), deltaConsumer, false));
     }
 
@@ -454,13 +506,19 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
       log.info("Modify file: {} (rev: {})", parent, rev);
       VcsFile vcsFile = parent.getEntry(StringHelper.baseName(args.name));
       final VcsDeltaConsumer deltaConsumer = context.getRepository().modifyFile(vcsFile);
-      files.put(args.token, new FileUpdater(deltaConsumer));
+      addFileUpdater(context, args.token, deltaConsumer);
       if (parent.head && (rev >= 0)) {
         checkUpToDate(vcsFile, rev, true);
       }
       parent.changes.add(treeBuilder -> treeBuilder.saveFile(StringHelper.baseName(args.name), deltaConsumer, true));
     }
 
+    private void addFileUpdater(@NotNull SessionContext context, @NotNull String token, @NotNull VcsDeltaConsumer deltaConsumer) {
+      final FileUpdater updater = new FileUpdater(deltaConsumer, context.getCommitExecutor());
+      files.put(token, updater);
+      updaters.add(updater);
+    }
+
     private void checkUpToDate(@NotNull VcsFile vcsFile, int rev, boolean checkLock) throws IOException, SVNException {
       if (vcsFile.getLastChange().getId() > rev) {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.WC_NOT_UP_TO_DATE, "Working copy is not up-to-date: " + vcsFile.getFullPath()));
@@ -474,20 +532,37 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.ILLEGAL_TARGET, "Invalid file token: " + args.token));
       }
       if (args.checksum.length != 0) {
-        file.deltaConsumer.validateChecksum(args.checksum[0]);
+        file.submit(updater -> updater.deltaConsumer.validateChecksum(args.checksum[0]));
       }
     }
 
     private void deltaApply(@NotNull SessionContext context, @NotNull ChecksumParams args) throws SVNException, IOException {
-      getFile(args.token).deltaConsumer.applyTextDelta(null, args.checksum.length == 0 ? null : args.checksum[0]);
+      getFile(args.token).submit(file -> file.deltaConsumer.applyTextDelta(null, args.checksum.length == 0 ? null : args.checksum[0]));
     }
 
     private void deltaChunk(@NotNull SessionContext context, @NotNull DeltaChunkParams args) throws SVNException, IOException {
-      getFile(args.token).reader.nextWindow(args.chunk, 0, args.chunk.length, "", getFile(args.token).deltaConsumer);
+      final FileUpdater updater = getFile(args.token);
+      if (pendingBytes.addAndGet(args.chunk.length) > MAX_PENDING_BYTES) {
+        // Workers are slower than network: don't keep too many chunks in memory.
+        awaitFiles();
+      }
+      updater.submit(file -> {
+        try {
+          file.reader.nextWindow(args.chunk, 0, args.chunk.length, "", file.deltaConsumer);
+        } finally {
+          pendingBytes.addAndGet(-args.chunk.length);
+        }
+      });
     }
 
     private void deltaEnd(@NotNull SessionContext context, @NotNull TokenParams args) throws SVNException, IOException {
-      getFile(args.token).deltaConsumer.textDeltaEnd(null);
+      getFile(args.token).submit(file -> file.deltaConsumer.textDeltaEnd(null));
+    }
+
+    private void awaitFiles() throws SVNException, IOException {
+      for (FileUpdater updater : updaters) {
+        updater.await();
+      }
     }
 
     @NotNull
@@ -532,6 +607,7 @@ public final class CommitCmd extends BaseCmd<CommitCmd.CommitParams> {
       if (!files.isEmpty()) {
         throw new SVNException(SVNErrorMessage.create(SVNErrorCode.INCOMPLETE_DATA, "Found not closed file tokens: " + files.keySet()));
       }
+      awaitFiles();
       final VcsRevision revision = context.getRepository().wrapLockWrite((lockManager) -> {
         final List<LockDesc> oldLocks = getLocks(lockManager, locks);
         for (int pass = 0; ; ++pass) {
@@ -24,6 +24,7 @@ import svnserver.parser.token.ListEndToken;
 import svnserver.repository.Depth;
 import svnserver.repository.VcsCopyFrom;
 import svnserver.repository.VcsFile;
+import svnserver.server.DeltaCache;
 import svnserver.server.SessionContext;
 import svnserver.server.step.CheckPermissionStep;
 
@@ -123,6 +124,11 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
   }
 
   public static class ReportPipeline {
+    // Maximum svndiff window size (same as SVN_DELTA_WINDOW_SIZE).
+    private static final int DELTA_WINDOW_SIZE = 100 * 1024;
+    @NotNull
+    private static final byte[] SVNDIFF0_HEADER = {'S', 'V', 'N', 0};
+
     private int lastTokenId;
     @NotNull
     private final Map<String, BaseCmd<?>> commands;
@@ -285,7 +291,11 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
 
     protected void sendResponse(@NotNull SessionContext context, @NotNull String path, int rev) throws IOException, SVNException {
       final SvnServerWriter writer = getWriter(context);
-      sendDelta(context, path, rev);
+      try {
+        sendDelta(context, path, rev);
+      } finally {
+        context.getDeltaCache().commit();
+      }
       writer
           .listBegin()
           .word("close-edit")
@@ -448,43 +458,12 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
               .listEnd();
 
           if (params.needDeltas()) {
-            final SVNDeltaGenerator deltaGenerator = new SVNDeltaGenerator();
-            try (InputStream source = openStream(oldFile);
-                 InputStream target = newFile.openStream()) {
-              final boolean compress = context.hasCapability("svndiff1");
-              final String validateMd5 = deltaGenerator.sendDelta(newFile.getFileName(), source, 0, target, new ISVNDeltaConsumer() {
-                private boolean header = true;
-
-                @Override
-                public void applyTextDelta(String path, String baseChecksum) throws SVNException {
-                }
-
-                @Override
-                public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
-                  try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
-                    diffWindow.writeTo(stream, header, compress);
-                    header = false;
-                    writer
-                        .listBegin()
-                        .word("textdelta-chunk")
-                        .listBegin()
-                        .string(tokenId)
-                        .binary(stream.toByteArray())
-                        .listEnd()
-                        .listEnd();
-                    return null;
-                  } catch (IOException e) {
-                    throw new SVNException(SVNErrorMessage.UNKNOWN_ERROR_MESSAGE, e);
-                  }
-                }
-
-                @Override
-                public void textDeltaEnd(String path) throws SVNException {
-                }
-              }, true);
-              if (!validateMd5.equals(md5)) {
-                throw new IllegalStateException("MD5 checksum mismatch: some shit happends.");
-              }
+            final boolean compress = context.hasCapability("svndiff1");
+            if (oldFile == null && (!compress || SVNProperty.isBinaryMimeType(newFile.getProperties().get(SVNProperty.MIME_TYPE)))) {
+              // Uncompressed or binary content: send full text as is, without delta generation.
+              sendFullText(writer, tokenId, newFile);
+            } else {
+              sendFileDelta(context, writer, tokenId, oldFile, newFile, md5, compress);
             }
           }
           writer
@@ -499,6 +478,110 @@ public final class DeltaCmd extends BaseCmd<DeltaParams> {
       }
     }
 
+    private void sendFileDelta(@NotNull SessionContext context, @NotNull SvnServerWriter writer, @NotNull String tokenId, @Nullable VcsFile oldFile, @NotNull VcsFile newFile, @NotNull String md5, boolean compress) throws IOException, SVNException {
+      final DeltaCache deltaCache = context.getDeltaCache();
+      final String deltaKey = DeltaCache.getKey(oldFile == null ? null : oldFile.getContentHash(), newFile.getContentHash(), compress);
+      final byte[] cachedDelta = deltaCache.get(deltaKey);
+      if (cachedDelta != null) {
+        DeltaCache.forEachChunk(cachedDelta, (data, offset, length) -> sendDeltaChunk(writer, tokenId, data, offset, length));
+      } else {
+        final DeltaCache.Recorder recorder = new DeltaCache.Recorder();
+        final SVNDeltaGenerator deltaGenerator = new SVNDeltaGenerator();
+        try (InputStream source = openStream(oldFile);
+             InputStream target = newFile.openStream()) {
+          final String validateMd5 = deltaGenerator.sendDelta(newFile.getFileName(), source, 0, target, new ISVNDeltaConsumer() {
+            private boolean header = true;
+
+            @Override
+            public void applyTextDelta(String path, String baseChecksum) throws SVNException {
+            }
+
+            @Override
+            public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+              try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
+                diffWindow.writeTo(stream, header, compress);
+                header = false;
+                final byte[] chunk = stream.toByteArray();
+                sendDeltaChunk(writer, tokenId, chunk, 0, chunk.length);
+                recorder.add(chunk);
+                return null;
+              } catch (IOException e) {
+                throw new SVNException(SVNErrorMessage.UNKNOWN_ERROR_MESSAGE, e);
+              }
+            }
+
+            @Override
+            public void textDeltaEnd(String path) throws SVNException {
+            }
+          }, true);
+          if (!validateMd5.equals(md5)) {
+            throw new IllegalStateException("MD5 checksum mismatch: some shit happends.");
+          }
+        }
+        final byte[] delta = recorder.toByteArray();
+        if (delta != null) {
+          deltaCache.put(deltaKey, delta);
+        }
+      }
+    }
+
+    /**
+     * Send file content as svndiff0 delta without source.
+     * <p>
+     * Every window contains single new data instruction, so window header is written by hand and content
+     * is sent as is.
+     */
+    private void sendFullText(@NotNull SvnServerWriter writer, @NotNull String tokenId, @NotNull VcsFile newFile) throws IOException {
+      sendDeltaChunk(writer, tokenId, SVNDIFF0_HEADER, 0, SVNDIFF0_HEADER.length);
+      final ByteArrayOutputStream windowHeader = new ByteArrayOutputStream();
+      newFile.readContent((data, offset, length) -> {
+        for (int pos = 0; pos < length; pos += DELTA_WINDOW_SIZE) {
+          final int size = Math.min(DELTA_WINDOW_SIZE, length - pos);
+          windowHeader.reset();
+          writeDiffInt(windowHeader, 0); // source view offset
+          writeDiffInt(windowHeader, 0); // source view length
+          writeDiffInt(windowHeader, size); // target view length
+          writeDiffInt(windowHeader, size < 0x40 ? 1 : 1 + getDiffIntLength(size)); // instructions length
+          writeDiffInt(windowHeader, size); // new data length
+          // Instruction: copy from new data.
+          if (size < 0x40) {
+            windowHeader.write(0x80 | size);
+          } else {
+            windowHeader.write(0x80);
+            writeDiffInt(windowHeader, size);
+          }
+          sendDeltaChunk(writer, tokenId, windowHeader.toByteArray(), 0, windowHeader.size());
+          sendDeltaChunk(writer, tokenId, data, offset + pos, size);
+        }
+      });
+    }
+
+    private static void writeDiffInt(@NotNull ByteArrayOutputStream stream, int value) {
+      for (int shift = (getDiffIntLength(value) - 1) * 7; shift > 0; shift -= 7) {
+        stream.write(0x80 | ((value >>> shift) & 0x7F));
+      }
+      stream.write(value & 0x7F);
+    }
+
+    private static int getDiffIntLength(int value) {
+      int length = 1;
+      while ((value >>>= 7) != 0) {
+        length++;
+      }
+      return length;
+    }
+
+    private void sendDeltaChunk(@NotNull SvnServerWriter writer, @NotNull String tokenId, @NotNull byte[] data, int offset, int length) throws IOException {
+      writer
+          .listBegin()
+          .word("textdelta-chunk")
+          .listBegin()
+          .string(tokenId)
+          .binary(data, offset, length)
+          .listEnd()
+          .listEnd();
+    }
+
     @NotNull
     private InputStream openStream(@Nullable VcsFile file) throws IOException {
       return file == null ? new ByteArrayInputStream(new byte[0]) : file.openStream();
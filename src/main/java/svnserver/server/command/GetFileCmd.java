@@ -11,7 +11,6 @@ import org.jetbrains.annotations.NotNull;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
-import svnserver.StreamHelper;
 import svnserver.parser.SvnServerWriter;
 import svnserver.repository.VcsFile;
 import svnserver.repository.VcsRepository;
@@ -19,7 +18,6 @@ import svnserver.repository.VcsRevision;
 import svnserver.server.SessionContext;
 
 import java.io.IOException;
-import java.io.InputStream;
 
 /**
  * Get file content.
@@ -63,6 +61,8 @@ public final class GetFileCmd extends BaseCmd<GetFileCmd.Params> {
   }
 
   private static final int WINDOW_SIZE = 1024 * 100;
+  @NotNull
+  private static final byte[] emptyBytes = {};
 
   @NotNull
   @Override
@@ -97,16 +97,12 @@ public final class GetFileCmd extends BaseCmd<GetFileCmd.Params> {
         .listEnd()
         .listEnd();
     if (args.wantContents) {
-      byte[] buffer = new byte[WINDOW_SIZE];
-      try (final InputStream stream = fileInfo.openStream()) {
-        while (true) {
-          int read = StreamHelper.readFully(stream, buffer, 0, buffer.length);
-          writer.binary(buffer, 0, read);
-          if (read == 0) {
-            break;
-          }
+      fileInfo.readContent((data, offset, length) -> {
+        for (int pos = 0; pos < length; pos += WINDOW_SIZE) {
+          writer.binary(data, offset + pos, Math.min(WINDOW_SIZE, length - pos));
         }
-      }
+      });
+      writer.binary(emptyBytes);
       writer
           .listBegin()
           .word("success")
@@ -11,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 import org.tmatesoft.svn.core.SVNException;
 import svnserver.parser.SvnServerWriter;
 import svnserver.repository.locks.LockDesc;
+import svnserver.repository.locks.LockResult;
 import svnserver.repository.locks.LockTarget;
 import svnserver.server.SessionContext;
 
@@ -87,16 +88,16 @@ public final class LockManyCmd extends BaseCmd<LockManyCmd.Params> {
       targets[i] = new LockTarget(path, rev);
     }
 
-    final LockDesc[] locks;
-    try {
-      locks = context.getRepository().wrapLockWrite((lockManager) -> lockManager.lock(context, comment, args.stealLock, targets));
-      for (LockDesc lock : locks) {
+    final LockResult[] results = context.getRepository().wrapLockWrite((lockManager) -> lockManager.lockMany(context, comment, args.stealLock, targets));
+    for (LockResult result : results) {
+      final LockDesc lock = result.getLock();
+      if (lock != null) {
         writer.listBegin().word("success");
         LockCmd.writeLock(writer, lock);
         writer.listEnd();
+      } else {
+        sendError(writer, result.getError());
       }
-    } catch (SVNException e) {
-      sendError(writer, e.getErrorMessage());
     }
 
     writer.word("done");
@@ -18,10 +18,10 @@ import svnserver.repository.VcsRevision;
 import svnserver.server.SessionContext;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 /**
  * Change current path in repository.
@@ -109,62 +109,41 @@ public final class LogCmd extends BaseCmd<LogCmd.Params> {
       throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_REVISION, "No such revision " + Math.max(startRev, endRev)));
     }
 
-    final List<VcsRevision> log;
-    if (startRev >= endRev) {
-      log = getLog(context, args, startRev, endRev, args.limit);
-    } else {
-      final List<VcsRevision> logReverse = getLog(context, args, endRev, startRev, -1);
-      final int minIndex = args.limit <= 0 ? 0 : Math.max(0, logReverse.size() - args.limit);
-      log = new ArrayList<>(logReverse.size() - minIndex);
-      for (int i = logReverse.size() - 1; i >= minIndex; i--) {
-        log.add(logReverse.get(i));
+    // Entries are written while history is walked: check target paths before first entry.
+    final VcsRevision lastRevision = context.getRepository().getRevisionInfo(Math.max(startRev, endRev));
+    for (String target : args.targetPath) {
+      final String fullTargetPath = context.getRepositoryPath(target);
+      if (lastRevision.getFile(fullTargetPath) == null) {
+        writer.word("done");
+        throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NOT_FOUND, "File not found: revision " + lastRevision.getId() + ", path '" + fullTargetPath + "'"));
       }
     }
-    for (VcsRevision revisionInfo : log) {
-      writer
-          .listBegin()
-          .listBegin();
-      if (args.changedPaths) {
-        final Map<String, ? extends VcsLogEntry> changes = revisionInfo.getChanges();
-        writer.separator();
-        for (Map.Entry<String, ? extends VcsLogEntry> entry : changes.entrySet()) {
-          final VcsLogEntry logEntry = entry.getValue();
-          final char change = logEntry.getChange();
-          if (change == 0) continue;
-          writer
-              .listBegin()
-              .string(entry.getKey()) // Path
-              .word(change)
-              .listBegin();
-          final VcsCopyFrom copyFrom = logEntry.getCopyFrom();
-          if (copyFrom != null) {
-            writer.string(copyFrom.getPath());
-            writer.number(copyFrom.getRevision());
-          }
-          writer.listEnd()
-              .listBegin()
-              .string(logEntry.getKind().toString())
-              .bool(logEntry.isContentModified()) // text-mods
-              .bool(logEntry.isPropertyModified()) // prop-mods
-              .listEnd()
-              .listEnd()
-              .separator();
+
+    if (startRev >= endRev) {
+      // Backward order: write entries while walking history.
+      final LogWalker walker = new LogWalker(context, args, startRev, endRev);
+      for (int i = 0; args.limit <= 0 || i < args.limit; ++i) {
+        final int revision = walker.next();
+        if (revision < 0) break;
+        writeLogEntry(writer, args, context.getRepository().getRevisionInfo(revision));
+      }
+    } else {
+      // Forward order: history can be walked only backward, so collect revision numbers first.
+      final LogWalker walker = new LogWalker(context, args, endRev, startRev);
+      int[] revisions = new int[64];
+      int count = 0;
+      while (true) {
+        final int revision = walker.next();
+        if (revision < 0) break;
+        if (count == revisions.length) {
+          revisions = Arrays.copyOf(revisions, count * 2);
         }
+        revisions[count++] = revision;
+      }
+      final int minIndex = args.limit <= 0 ? 0 : Math.max(0, count - args.limit);
+      for (int i = count - 1; i >= minIndex; i--) {
+        writeLogEntry(writer, args, context.getRepository().getRevisionInfo(revisions[i]));
       }
-
-      final Map<String, String> revProps = revisionInfo.getProperties(false);
-
-      writer.listEnd()
-          .number(revisionInfo.getId())
-          .listBegin().stringNullable(revisionInfo.getAuthor()).listEnd()
-          .listBegin().stringNullable(revisionInfo.getDateString()).listEnd()
-          .listBegin().stringNullable(revisionInfo.getLog()).listEnd()
-          .bool(false)
-          .bool(false)
-          .number(revProps.size())
-          .writeMap(revProps)
-          .listEnd()
-          .separator();
     }
     writer
         .word("done");
@@ -176,53 +155,112 @@ public final class LogCmd extends BaseCmd<LogCmd.Params> {
         .listEnd();
   }
 
-  private List<VcsRevision> getLog(@NotNull SessionContext context, @NotNull Params args, int endRev, int startRev, int limit) throws IOException, SVNException {
-    final List<VcsCopyFrom> targetPaths = new ArrayList<>();
-    int revision = -1;
-    for (String target : args.targetPath) {
-      final String fullTargetPath = context.getRepositoryPath(target);
-      final int lastChange = context.getRepository().getLastChange(fullTargetPath, endRev);
-      if (lastChange >= startRev) {
-        targetPaths.add(new VcsCopyFrom(lastChange, fullTargetPath));
-        revision = Math.max(revision, lastChange);
+  private void writeLogEntry(@NotNull SvnServerWriter writer, @NotNull Params args, @NotNull VcsRevision revisionInfo) throws IOException, SVNException {
+    writer
+        .listBegin()
+        .listBegin();
+    if (args.changedPaths) {
+      final Map<String, ? extends VcsLogEntry> changes = revisionInfo.getChanges();
+      writer.separator();
+      for (Map.Entry<String, ? extends VcsLogEntry> entry : changes.entrySet()) {
+        final VcsLogEntry logEntry = entry.getValue();
+        final char change = logEntry.getChange();
+        if (change == 0) continue;
+        writer
+            .listBegin()
+            .string(entry.getKey()) // Path
+            .word(change)
+            .listBegin();
+        final VcsCopyFrom copyFrom = logEntry.getCopyFrom();
+        if (copyFrom != null) {
+          writer.string(copyFrom.getPath());
+          writer.number(copyFrom.getRevision());
+        }
+        writer.listEnd()
+            .listBegin()
+            .string(logEntry.getKind().toString())
+            .bool(logEntry.isContentModified()) // text-mods
+            .bool(logEntry.isPropertyModified()) // prop-mods
+            .listEnd()
+            .listEnd()
+            .separator();
       }
     }
-    final List<VcsRevision> result = new ArrayList<>();
-    int logLimit = limit;
-    while (revision >= startRev) {
-      final VcsRevision revisionInfo = context.getRepository().getRevisionInfo(revision);
-      result.add(revisionInfo);
-      if (--logLimit == 0) break;
 
-      int nextRevision = -1;
-      final ListIterator<VcsCopyFrom> iter = targetPaths.listIterator();
-      while (iter.hasNext()) {
-        final VcsCopyFrom entry = iter.next();
-        if (revision == entry.getRevision()) {
-          final int lastChange = context.getRepository().getLastChange(entry.getPath(), revision - 1);
-          if (lastChange >= revision) {
-            throw new IllegalStateException();
+    final Map<String, String> revProps = revisionInfo.getProperties(false);
+
+    writer.listEnd()
+        .number(revisionInfo.getId())
+        .listBegin().stringNullable(revisionInfo.getAuthor()).listEnd()
+        .listBegin().stringNullable(revisionInfo.getDateString()).listEnd()
+        .listBegin().stringNullable(revisionInfo.getLog()).listEnd()
+        .bool(false)
+        .bool(false)
+        .number(revProps.size())
+        .writeMap(revProps)
+        .listEnd()
+        .separator();
+  }
+
+  /**
+   * Walks history of target paths from newest revision to oldest.
+   * <p>
+   * Path histories are merged by heap ordered by next changed revision. Revision info is loaded only when
+   * path history continues from copy source.
+   */
+  private static final class LogWalker {
+    @NotNull
+    private final SessionContext context;
+    private final boolean strictNode;
+    private final int startRev;
+    @NotNull
+    private final PriorityQueue<VcsCopyFrom> targetPaths = new PriorityQueue<>(Comparator.comparingInt(VcsCopyFrom::getRevision).reversed());
+
+    private LogWalker(@NotNull SessionContext context, @NotNull Params args, int endRev, int startRev) throws SVNException {
+      this.context = context;
+      this.strictNode = args.strictNode;
+      this.startRev = startRev;
+      for (String target : args.targetPath) {
+        final String fullTargetPath = context.getRepositoryPath(target);
+        final int lastChange = context.getRepository().getLastChange(fullTargetPath, endRev);
+        if (lastChange >= startRev) {
+          targetPaths.add(new VcsCopyFrom(lastChange, fullTargetPath));
+        }
+      }
+    }
+
+    /**
+     * @return Next revision number or -1, if history is finished.
+     */
+    private int next() throws IOException, SVNException {
+      final VcsCopyFrom head = targetPaths.peek();
+      if (head == null || head.getRevision() < startRev) {
+        return -1;
+      }
+      final int current = head.getRevision();
+      VcsRevision revisionInfo = null;
+      while (!targetPaths.isEmpty() && targetPaths.peek().getRevision() == current) {
+        final VcsCopyFrom entry = targetPaths.remove();
+        final int lastChange = context.getRepository().getLastChange(entry.getPath(), current - 1);
+        if (lastChange >= current) {
+          throw new IllegalStateException();
+        }
+        if (lastChange < 0) {
+          if (strictNode) {
+            continue;
           }
-          if (lastChange < 0) {
-            if (args.strictNode) {
-              iter.remove();
-              continue;
-            }
-            final VcsCopyFrom copyFrom = revisionInfo.getCopyFrom(entry.getPath());
-            if (copyFrom != null) {
-              iter.set(copyFrom);
-              nextRevision = Math.max(nextRevision, copyFrom.getRevision());
-            } else {
-              iter.remove();
-            }
-          } else {
-            iter.set(new VcsCopyFrom(lastChange, entry.getPath()));
-            nextRevision = Math.max(nextRevision, lastChange);
+          if (revisionInfo == null) {
+            revisionInfo = context.getRepository().getRevisionInfo(current);
+          }
+          final VcsCopyFrom copyFrom = revisionInfo.getCopyFrom(entry.getPath());
+          if (copyFrom != null) {
+            targetPaths.add(copyFrom);
           }
+        } else {
+          targetPaths.add(new VcsCopyFrom(lastChange, entry.getPath()));
         }
       }
-      revision = nextRevision;
+      return current;
     }
-    return result;
   }
 }
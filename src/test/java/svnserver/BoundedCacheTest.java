@@ -0,0 +1,93 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test for BoundedCache.
+ */
+public class BoundedCacheTest {
+  @Test
+  public void loadOnce() {
+    final BoundedCache<String, String> cache = new BoundedCache<>(10);
+    final AtomicInteger loads = new AtomicInteger();
+    for (int i = 0; i < 3; ++i) {
+      Assert.assertEquals(cache.get("foo", key -> {
+        loads.incrementAndGet();
+        return key + "!";
+      }), "foo!");
+    }
+    Assert.assertEquals(loads.get(), 1);
+    Assert.assertEquals(cache.getMisses(), 1);
+    Assert.assertEquals(cache.getHits(), 2);
+  }
+
+  @Test
+  public void evictLeastRecentlyUsed() {
+    final BoundedCache<Integer, Integer> cache = new BoundedCache<>(2);
+    cache.get(1, key -> key);
+    cache.get(2, key -> key);
+    // Touch first entry, so second entry become least recently used.
+    cache.get(1, key -> key);
+    cache.get(3, key -> key);
+    Assert.assertEquals(cache.size(), 2);
+    Assert.assertEquals(cache.getEvictions(), 1);
+    Assert.assertNotNull(cache.getIfPresent(1));
+    Assert.assertNull(cache.getIfPresent(2));
+    Assert.assertNotNull(cache.getIfPresent(3));
+  }
+
+  @Test
+  public void evictByWeight() {
+    final BoundedCache<Integer, byte[]> cache = new BoundedCache<>(10, (key, value) -> value.length);
+    cache.put(1, new byte[4]);
+    cache.put(2, new byte[4]);
+    cache.put(3, new byte[4]);
+    Assert.assertEquals(cache.getWeight(), 8);
+    Assert.assertNull(cache.getIfPresent(1));
+    // Value heavier than whole cache is not stored.
+    cache.put(4, new byte[11]);
+    Assert.assertNull(cache.getIfPresent(4));
+    Assert.assertEquals(cache.size(), 2);
+  }
+
+  @Test
+  public void disabled() {
+    final BoundedCache<Integer, Integer> cache = new BoundedCache<>(0);
+    Assert.assertEquals(cache.get(1, key -> key).intValue(), 1);
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void concurrentSegments() throws Exception {
+    final BoundedCache<Integer, Integer> cache = new BoundedCache<>(4096);
+    final Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; ++i) {
+      final int shift = i;
+      threads[i] = new Thread(() -> {
+        for (int key = 0; key < 20000; ++key) {
+          final int value = key + shift;
+          Assert.assertEquals(cache.get(value, k -> k).intValue(), value);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    // Weight limit is shared between segments and is never exceeded.
+    Assert.assertTrue(cache.getWeight() <= cache.getMaxWeight());
+    Assert.assertEquals(cache.getWeight(), cache.size());
+    Assert.assertTrue(cache.size() > cache.getMaxWeight() / 2);
+    Assert.assertEquals(cache.getHits() + cache.getMisses(), 4 * 20000);
+  }
+}
@@ -31,6 +31,7 @@ import svnserver.repository.git.GitPushMode;
 import svnserver.repository.git.GitRepository;
 import svnserver.repository.locks.PersistentLockFactory;
 import svnserver.repository.mapping.RepositoryListMapping;
+import svnserver.server.ConnectionMode;
 import svnserver.server.SvnServer;
 import svnserver.tester.SvnTester;
 
@@ -78,6 +79,10 @@ public final class SvnTestServer implements SvnTester {
   private final boolean safeBranch;
 
   private SvnTestServer(@NotNull Repository repository, @Nullable String branch, @NotNull String prefix, boolean safeBranch, @Nullable UserDBConfig userDBConfig) throws Exception {
+    this(repository, branch, prefix, safeBranch, userDBConfig, ConnectionMode.THREAD, 0);
+  }
+
+  private SvnTestServer(@NotNull Repository repository, @Nullable String branch, @NotNull String prefix, boolean safeBranch, @Nullable UserDBConfig userDBConfig, @NotNull ConnectionMode connectionMode, int workerThreads) throws Exception {
     SVNFileUtil.setSleepForTimestamp(false);
     this.repository = repository;
     this.safeBranch = safeBranch;
@@ -97,6 +102,8 @@ public final class SvnTestServer implements SvnTester {
     }
 
     final Config config = new Config(BIND_HOST, 0);
+    config.setConnectionMode(connectionMode);
+    config.setWorkerThreads(workerThreads);
     config.setCacheConfig(new MemoryCacheConfig());
     config.setRepositoryMapping(new TestRepositoryConfig(repository, testBranch, prefix));
     if (userDBConfig != null) {
@@ -147,6 +154,29 @@ public final class SvnTestServer implements SvnTester {
     return new SvnTestServer(TestHelper.emptyRepository(), branch, "", false, userDBConfig);
   }
 
+  /**
+   * Create server for empty repository with given connection mode.
+   *
+   * @param connectionMode Connection mode.
+   * @param workerThreads  Worker thread count for {@link ConnectionMode#NIO} mode (0 - detect by processor count).
+   */
+  @NotNull
+  public static SvnTestServer createEmpty(@NotNull ConnectionMode connectionMode, int workerThreads) throws Exception {
+    final String branch = "master";
+    return new SvnTestServer(TestHelper.emptyRepository(), branch, "", false, null, connectionMode, workerThreads);
+  }
+
+  /**
+   * Create server for already filled repository.
+   *
+   * @param repository Repository.
+   * @param branch     Served branch.
+   */
+  @NotNull
+  public static SvnTestServer create(@NotNull Repository repository, @NotNull String branch) throws Exception {
+    return new SvnTestServer(repository, branch, "", false, null);
+  }
+
   @NotNull
   public static SvnTestServer createMasterRepository() throws Exception {
     return new SvnTestServer(new FileRepository(TestHelper.findGitPath()), null, "/master", true, null);
@@ -238,6 +268,9 @@ public final class SvnTestServer implements SvnTester {
           GitPushMode.SIMPLE,
           branch,
           true,
+          false,
+          GitRepository.DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE,
+          GitRepository.DEFAULT_FILE_PROPERTY_CACHE_SIZE,
           new PersistentLockFactory(cacheDb),
           cacheDb
       ));
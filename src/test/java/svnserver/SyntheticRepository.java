@@ -0,0 +1,113 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver;
+
+import org.jetbrains.annotations.NotNull;
+import org.eclipse.jgit.lib.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Synthetic git history generator for tests and benchmarks.
+ * <p>
+ * First commit creates all files, every next commit modifies some random files.
+ * History is deterministic for the same parameters.
+ */
+public final class SyntheticRepository {
+  private static final int FILES_PER_DIRECTORY = 20;
+  private static final int CHANGES_PER_COMMIT = 3;
+  private static final long COMMIT_INTERVAL = 60 * 1000L;
+
+  private SyntheticRepository() {
+  }
+
+  @NotNull
+  public static Repository create(int commits, int files) throws IOException {
+    final Repository repository = TestHelper.emptyRepository();
+    generate(repository, Constants.MASTER, commits, files);
+    return repository;
+  }
+
+  /**
+   * Append synthetic commits to branch.
+   *
+   * @param repository Repository.
+   * @param branch     Branch name.
+   * @param commits    Commit count.
+   * @param files      File count.
+   * @return Last commit id.
+   */
+  @NotNull
+  public static ObjectId generate(@NotNull Repository repository, @NotNull String branch, int commits, int files) throws IOException {
+    final Random random = new Random(commits * 31L + files);
+    final int directories = (files + FILES_PER_DIRECTORY - 1) / FILES_PER_DIRECTORY;
+    final ObjectId[] blobs = new ObjectId[files];
+    final ObjectId[] trees = new ObjectId[directories];
+    final boolean[] dirty = new boolean[directories];
+    final Ref head = repository.getRef(Constants.R_HEADS + branch);
+    ObjectId commitId = head == null ? null : head.getObjectId();
+    final ObjectInserter inserter = repository.newObjectInserter();
+    try {
+      for (int revision = 0; revision < commits; ++revision) {
+        if (revision == 0) {
+          for (int file = 0; file < files; ++file) {
+            blobs[file] = insertBlob(inserter, file, revision);
+            dirty[file / FILES_PER_DIRECTORY] = true;
+          }
+        } else {
+          for (int i = 0; i < CHANGES_PER_COMMIT; ++i) {
+            final int file = random.nextInt(files);
+            blobs[file] = insertBlob(inserter, file, revision);
+            dirty[file / FILES_PER_DIRECTORY] = true;
+          }
+        }
+        final TreeFormatter root = new TreeFormatter();
+        for (int dir = 0; dir < directories; ++dir) {
+          if (dirty[dir]) {
+            final TreeFormatter tree = new TreeFormatter();
+            for (int file = dir * FILES_PER_DIRECTORY; file < Math.min(files, (dir + 1) * FILES_PER_DIRECTORY); ++file) {
+              tree.append(String.format("file%05d.txt", file), FileMode.REGULAR_FILE, blobs[file]);
+            }
+            trees[dir] = inserter.insert(tree);
+            dirty[dir] = false;
+          }
+          root.append(String.format("dir%04d", dir), FileMode.TREE, trees[dir]);
+        }
+        final PersonIdent ident = new PersonIdent("Benchmark", "benchmark@example.org", revision * COMMIT_INTERVAL, 0);
+        final CommitBuilder commit = new CommitBuilder();
+        commit.setTreeId(inserter.insert(root));
+        if (commitId != null) {
+          commit.setParentId(commitId);
+        }
+        commit.setAuthor(ident);
+        commit.setCommitter(ident);
+        commit.setMessage("Commit #" + revision + "\n");
+        commitId = inserter.insert(commit);
+      }
+      inserter.flush();
+    } finally {
+      inserter.release();
+    }
+    if (commitId == null) {
+      throw new IllegalArgumentException("Commit count must be positive: " + commits);
+    }
+    final RefUpdate refUpdate = repository.updateRef(Constants.R_HEADS + branch);
+    refUpdate.setNewObjectId(commitId);
+    refUpdate.setForceUpdate(true);
+    refUpdate.update();
+    return commitId;
+  }
+
+  @NotNull
+  private static ObjectId insertBlob(@NotNull ObjectInserter inserter, int file, int revision) throws IOException {
+    final String content = "File #" + file + "\nRevision #" + revision + "\n";
+    return inserter.insert(Constants.OBJ_BLOB, content.getBytes(StandardCharsets.UTF_8));
+  }
+}
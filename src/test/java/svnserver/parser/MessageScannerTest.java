@@ -0,0 +1,48 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.parser;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link MessageScanner}.
+ */
+public class MessageScannerTest {
+  @Test
+  public void messageEnd() {
+    final byte[] data = "( word2 22 ( sublist ) 5:) ( ) ( 0: ) ) ( next ".getBytes(StandardCharsets.UTF_8);
+    final int firstEnd = "( word2 22 ( sublist ) 5:) ( ) ( 0: ) )".length();
+    // Message end should be the same for any data split.
+    for (int step = 1; step <= data.length; ++step) {
+      final MessageScanner scanner = new MessageScanner();
+      long lastEnd = 0;
+      for (int offset = 0; offset < data.length; offset += step) {
+        scanner.scan(data, offset, Math.min(step, data.length - offset));
+        Assert.assertTrue(scanner.getMessageEnd() >= lastEnd);
+        lastEnd = scanner.getMessageEnd();
+        if (scanner.getPosition() < firstEnd) {
+          Assert.assertEquals(scanner.getMessageEnd(), 0);
+        }
+      }
+      Assert.assertEquals(scanner.getPosition(), data.length);
+      Assert.assertEquals(scanner.getMessageEnd(), firstEnd);
+    }
+  }
+
+  @Test
+  public void incompleteString() {
+    final MessageScanner scanner = new MessageScanner();
+    final byte[] data = "( 10:))))) ".getBytes(StandardCharsets.UTF_8);
+    scanner.scan(data, 0, data.length);
+    // Parentheses inside string data are not list tokens.
+    Assert.assertEquals(scanner.getMessageEnd(), 0);
+  }
+}
@@ -142,4 +142,63 @@ public class SvnServerParserTest {
       Assert.assertEquals(parser.readToken(), new WordToken("end"));
     }
   }
+
+  @Test
+  public void testPrimitiveRead() throws IOException {
+    try (InputStream stream = new ByteArrayInputStream("( word 22 6:string 8:Тест ) end ".getBytes(StandardCharsets.UTF_8))) {
+      final SvnServerParser parser = new SvnServerParser(stream, 1);
+      Assert.assertEquals(parser.readToken(), ListBeginToken.instance);
+      Assert.assertEquals(parser.readText(), "word");
+      Assert.assertEquals(parser.readNumber(), 22);
+      Assert.assertEquals(parser.readTextItem(), "string");
+      Assert.assertEquals(parser.readTextItem(), "Тест");
+      Assert.assertNull(parser.readTextItem());
+      try {
+        parser.readNumber();
+        Assert.fail();
+      } catch (IOException e) {
+        Assert.assertFalse(e instanceof EOFException);
+      }
+    }
+  }
+
+  @Test
+  public void testWordIntern() throws IOException {
+    try (InputStream stream = new ByteArrayInputStream("( target-rev ) ( target-rev ) ".getBytes(StandardCharsets.UTF_8))) {
+      final SvnServerParser parser = new SvnServerParser(stream);
+      parser.readToken(ListBeginToken.class);
+      final WordToken first = parser.readToken(WordToken.class);
+      parser.readToken(ListEndToken.class);
+      parser.readToken(ListBeginToken.class);
+      Assert.assertSame(parser.readToken(WordToken.class), first);
+      parser.readToken(ListEndToken.class);
+    }
+  }
+
+  @Test
+  public void testSkipItems() throws IOException {
+    try (InputStream stream = new ByteArrayInputStream("( word ( 3:)() 1 ) 2:zz ) end ".getBytes(StandardCharsets.UTF_8))) {
+      final SvnServerParser parser = new SvnServerParser(stream, 1);
+      parser.readToken(ListBeginToken.class);
+      parser.skipItems();
+      Assert.assertEquals(parser.getDepth(), 0);
+      Assert.assertEquals(parser.readText(), "end");
+    }
+  }
+
+  @Test
+  public void testBufferedData() throws IOException {
+    try (InputStream stream = new ByteArrayInputStream("( first ) ( second ) \n".getBytes(StandardCharsets.UTF_8))) {
+      final SvnServerParser parser = new SvnServerParser(stream);
+      Assert.assertFalse(parser.hasBufferedData());
+      parser.readToken(ListBeginToken.class);
+      Assert.assertEquals(parser.readText(), "first");
+      parser.readToken(ListEndToken.class);
+      Assert.assertTrue(parser.hasBufferedData());
+      parser.readToken(ListBeginToken.class);
+      Assert.assertEquals(parser.readText(), "second");
+      parser.readToken(ListEndToken.class);
+      Assert.assertFalse(parser.hasBufferedData());
+    }
+  }
 }
@@ -0,0 +1,79 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.SyntheticRepository;
+import svnserver.repository.locks.PersistentLockFactory;
+
+import java.util.*;
+
+/**
+ * Test for ChangeHelper.
+ */
+public class ChangeHelperTest {
+  @Test
+  public void collectChanges() throws Exception {
+    final Repository repository = SyntheticRepository.create(20, 100);
+    try {
+      final DB cacheDb = DBMaker.newMemoryDB().make();
+      final GitRepository gitRepository = new GitRepository(
+          repository,
+          Collections.emptyList(),
+          GitPushMode.SIMPLE,
+          Constants.MASTER,
+          true,
+          false,
+          GitRepository.DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE,
+          GitRepository.DEFAULT_FILE_PROPERTY_CACHE_SIZE,
+          new PersistentLockFactory(cacheDb),
+          cacheDb
+      );
+      final List<RevCommit> commits = new ArrayList<>();
+      final RevWalk revWalk = new RevWalk(repository);
+      revWalk.markStart(revWalk.parseCommit(repository.getRef(Constants.R_HEADS + Constants.MASTER).getObjectId()));
+      for (RevCommit commit : revWalk) {
+        commits.add(commit);
+      }
+      Collections.reverse(commits);
+      for (int i = 1; i < commits.size(); ++i) {
+        final RevCommit oldCommit = commits.get(i - 1);
+        final RevCommit newCommit = commits.get(i);
+        // Changed paths by JGit tree diff.
+        final Set<String> expected = new TreeSet<>();
+        final TreeWalk treeWalk = new TreeWalk(repository);
+        treeWalk.setRecursive(true);
+        treeWalk.setFilter(TreeFilter.ANY_DIFF);
+        treeWalk.addTree(oldCommit.getTree());
+        treeWalk.addTree(newCommit.getTree());
+        while (treeWalk.next()) {
+          final String path = "/" + treeWalk.getPathString();
+          expected.add(path);
+          expected.add(path.substring(0, path.lastIndexOf('/')));
+        }
+        final Map<String, GitLogPair> changes = ChangeHelper.collectChanges(
+            new GitFile(gitRepository, oldCommit, i - 1),
+            new GitFile(gitRepository, newCommit, i),
+            false
+        );
+        Assert.assertEquals(new TreeSet<>(changes.keySet()), expected, "Commit #" + i);
+      }
+    } finally {
+      repository.close();
+    }
+  }
+}
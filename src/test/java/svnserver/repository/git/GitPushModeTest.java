@@ -0,0 +1,94 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.*;
+import org.jetbrains.annotations.NotNull;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+import svnserver.TestHelper;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Test for embedded GitPushMode.NATIVE.
+ */
+public class GitPushModeTest {
+  @NotNull
+  private static final String BRANCH = "refs/heads/master";
+
+  @Test
+  public void testFastForward() throws Exception {
+    final File tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final Repository repository = GitCreateMode.EMPTY.createRepository(tempDir, "master");
+      final ObjectId first = createCommit(repository, "first");
+      final ObjectId second = createCommit(repository, "second", first);
+      final ObjectId other = createCommit(repository, "other");
+      Assert.assertTrue(GitPushMode.NATIVE.push(repository, first, BRANCH));
+      Assert.assertTrue(GitPushMode.NATIVE.push(repository, second, BRANCH));
+      Assert.assertFalse(GitPushMode.NATIVE.push(repository, other, BRANCH));
+      Assert.assertEquals(repository.getRef(BRANCH).getObjectId(), second);
+      repository.close();
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  @Test
+  public void testHooks() throws Exception {
+    final File tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final Repository repository = GitCreateMode.EMPTY.createRepository(tempDir, "master");
+      final ObjectId first = createCommit(repository, "first");
+      final ObjectId second = createCommit(repository, "second", first);
+      final File received = new File(tempDir, "received");
+      createHook(repository, "post-receive", "cat > received\n");
+      Assert.assertTrue(GitPushMode.NATIVE.push(repository, first, BRANCH));
+      Assert.assertTrue(received.exists());
+
+      createHook(repository, "pre-receive", "cat > /dev/null\necho \"Denied: $GIT_DIR\"\nexit 1\n");
+      try {
+        GitPushMode.NATIVE.push(repository, second, BRANCH);
+        Assert.fail("Push must be rejected by hook");
+      } catch (SVNException e) {
+        Assert.assertEquals(e.getErrorMessage().getErrorCode(), SVNErrorCode.REPOS_HOOK_FAILURE);
+        Assert.assertTrue(e.getMessage().contains("Denied: ."), e.getMessage());
+      }
+      Assert.assertEquals(repository.getRef(BRANCH).getObjectId(), first);
+      repository.close();
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  private static void createHook(@NotNull Repository repository, @NotNull String name, @NotNull String script) throws IOException {
+    final File hooks = new File(repository.getDirectory(), "hooks");
+    Assert.assertTrue(hooks.isDirectory() || hooks.mkdirs());
+    final File hook = new File(hooks, name);
+    TestHelper.saveFile(hook, "#!/bin/sh\n" + script);
+    Assert.assertTrue(hook.setExecutable(true));
+  }
+
+  @NotNull
+  private static ObjectId createCommit(@NotNull Repository repository, @NotNull String message, @NotNull ObjectId... parents) throws IOException {
+    final ObjectInserter inserter = repository.newObjectInserter();
+    final CommitBuilder commitBuilder = new CommitBuilder();
+    commitBuilder.setAuthor(new PersonIdent("", "", 0, 0));
+    commitBuilder.setCommitter(new PersonIdent("", "", 0, 0));
+    commitBuilder.setMessage(message);
+    commitBuilder.setTreeId(inserter.insert(new TreeFormatter()));
+    commitBuilder.setParentIds(parents);
+    final ObjectId commitId = inserter.insert(commitBuilder);
+    inserter.flush();
+    return commitId;
+  }
+}
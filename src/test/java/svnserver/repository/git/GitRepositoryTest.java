@@ -0,0 +1,434 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import svnserver.SyntheticRepository;
+import svnserver.TestHelper;
+import svnserver.auth.User;
+import svnserver.repository.VcsCommitBuilder;
+import svnserver.repository.VcsDeltaConsumer;
+import svnserver.repository.VcsRevision;
+import svnserver.repository.locks.LockDesc;
+import svnserver.repository.locks.LockManagerWrite;
+import svnserver.repository.locks.PersistentLockFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test for GitRepository revision indexing.
+ */
+public class GitRepositoryTest {
+  @Test
+  public void backgroundIndexing() throws Exception {
+    final File tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final Repository repository = GitCreateMode.EXAMPLE.createRepository(tempDir, Constants.MASTER);
+      try {
+        final GitRepository background = createRepository(repository, true);
+        try {
+          // First revision is always available.
+          Assert.assertEquals(background.getRevisionInfo(0).getId(), 0);
+          final long deadline = System.currentTimeMillis() + 30 * 1000;
+          while (background.isIndexing()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "Indexing timeout");
+            Thread.sleep(10);
+          }
+          final GitRepository sync = createRepository(repository, false);
+          try {
+            Assert.assertFalse(sync.isIndexing());
+            Assert.assertEquals(background.getLatestRevision().getId(), sync.getLatestRevision().getId());
+            Assert.assertEquals(background.getUuid(), sync.getUuid());
+          } finally {
+            sync.close();
+          }
+        } finally {
+          background.close();
+        }
+      } finally {
+        repository.close();
+      }
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  @Test
+  public void indexSnapshot() throws Exception {
+    final Repository repository = SyntheticRepository.create(50, 40);
+    try {
+      final DB cacheDb = DBMaker.newMemoryDB().make();
+      final GitRepository first = createRepository(repository, false, cacheDb);
+      try {
+        first.saveIndexSnapshot();
+        Assert.assertFalse(cacheDb.getHashMap("cache.index").isEmpty());
+        // Revisions after snapshot should be loaded from revision cache.
+        SyntheticRepository.generate(repository, Constants.MASTER, 10, 40);
+        first.updateRevisions();
+      } finally {
+        first.close();
+      }
+
+      final GitRepository expected = createRepository(repository, false, DBMaker.newMemoryDB().make());
+      final GitRepository actual = createRepository(repository, false, cacheDb);
+      try {
+        final int latest = expected.getLatestRevision().getId();
+        Assert.assertEquals(actual.getLatestRevision().getId(), latest);
+        Assert.assertEquals(actual.getUuid(), expected.getUuid());
+
+        final List<String> paths = new ArrayList<>();
+        final TreeWalk treeWalk = new TreeWalk(repository);
+        treeWalk.setRecursive(true);
+        treeWalk.addTree(expected.getLatestRevision().getGitNewCommit().getTree());
+        while (treeWalk.next()) {
+          paths.add("/" + treeWalk.getPathString());
+        }
+        Assert.assertFalse(paths.isEmpty());
+        for (int revision = 0; revision <= latest; ++revision) {
+          final GitRevision expectedRevision = expected.getRevisionInfo(revision);
+          final GitRevision actualRevision = actual.getRevisionInfo(revision);
+          Assert.assertEquals(actualRevision.getCacheCommit(), expectedRevision.getCacheCommit());
+          Assert.assertEquals(actualRevision.getGitNewCommit(), expectedRevision.getGitNewCommit());
+          Assert.assertEquals(actualRevision.getDate(), expectedRevision.getDate());
+          for (String path : paths) {
+            Assert.assertEquals(actual.getLastChange(path, revision), expected.getLastChange(path, revision), path + "@" + revision);
+          }
+        }
+      } finally {
+        actual.close();
+        expected.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @Test
+  public void resolveFile() throws Exception {
+    final Repository repository = SyntheticRepository.create(10, 100);
+    try {
+      final GitRepository gitRepository = createRepository(repository, false);
+      try {
+        final GitRevision revision = gitRepository.getLatestRevision();
+        final TreeWalk treeWalk = new TreeWalk(repository);
+        treeWalk.setRecursive(true);
+        treeWalk.addTree(revision.getGitNewCommit().getTree());
+        while (treeWalk.next()) {
+          final String path = "/" + treeWalk.getPathString();
+          for (int pass = 0; pass < 2; ++pass) {
+            final GitFile file = revision.getFile(path);
+            Assert.assertNotNull(file, path);
+            Assert.assertEquals(file.getFullPath(), path);
+            Assert.assertEquals(file.getObjectId().getObject(), treeWalk.getObjectId(0));
+            Assert.assertEquals(file.getLastChange().getId(), gitRepository.getLastChange(path, revision.getId()));
+          }
+          Assert.assertNull(revision.getFile(path + ".missing"));
+          Assert.assertNull(revision.getFile(path + "/missing"));
+        }
+        Assert.assertTrue(gitRepository.getPathCache().getHits() > 0);
+      } finally {
+        gitRepository.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @Test
+  public void revisionChanges() throws Exception {
+    final Repository repository = SyntheticRepository.create(20, 40);
+    try {
+      final DB cacheDb = DBMaker.newMemoryDB().make();
+      final GitRepository first = createRepository(repository, false, cacheDb);
+      try {
+        final int latest = first.getLatestRevision().getId();
+        for (int revision = 0; revision <= latest; ++revision) {
+          first.getRevisionInfo(revision).getChanges();
+        }
+        // Changes should be loaded from cache with the same content.
+        final GitRepository second = createRepository(repository, false, cacheDb);
+        try {
+          for (int revision = 0; revision <= latest; ++revision) {
+            final GitRevision revisionInfo = second.getRevisionInfo(revision);
+            final RevisionChanges expected = RevisionChanges.create(revisionInfo.collectChanges());
+            final RevisionChanges actual = second.loadChanges(revisionInfo);
+            Assert.assertEquals(actual.getEntries().keySet(), expected.getEntries().keySet());
+            Assert.assertEquals(actual.save(), expected.save());
+          }
+          Assert.assertFalse(first.getRevisionInfo(latest).getChanges().isEmpty());
+        } finally {
+          second.close();
+        }
+      } finally {
+        first.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @Test
+  public void externalRefChange() throws Exception {
+    final File tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final Repository repository = GitCreateMode.EXAMPLE.createRepository(tempDir, Constants.MASTER);
+      try {
+        final GitRepository gitRepository = createRepository(repository, false);
+        try {
+          final int revision = gitRepository.getLatestRevision().getId();
+          // Move branch outside of GitRepository, like git push does.
+          final ObjectId head = repository.resolve(Constants.MASTER);
+          final ObjectInserter inserter = repository.newObjectInserter();
+          final CommitBuilder commitBuilder = new CommitBuilder();
+          final PersonIdent ident = new PersonIdent("Test User", "test@example.com");
+          commitBuilder.setAuthor(ident);
+          commitBuilder.setCommitter(ident);
+          commitBuilder.setMessage("External commit");
+          commitBuilder.setParentId(head);
+          final RevWalk revWalk = new RevWalk(repository);
+          try {
+            commitBuilder.setTreeId(revWalk.parseCommit(head).getTree());
+          } finally {
+            revWalk.release();
+          }
+          final ObjectId commitId = inserter.insert(commitBuilder);
+          inserter.flush();
+          final RefUpdate refUpdate = repository.updateRef(Constants.R_HEADS + Constants.MASTER);
+          refUpdate.setNewObjectId(commitId);
+          Assert.assertEquals(refUpdate.update(), RefUpdate.Result.FAST_FORWARD);
+          // New revision should be published without explicit updateRevisions() call.
+          final long deadline = System.currentTimeMillis() + 30 * 1000;
+          while (gitRepository.getLatestRevision().getId() == revision) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "Reference change notification timeout");
+            Thread.sleep(10);
+          }
+          Assert.assertEquals(gitRepository.getLatestRevision().getId(), revision + 1);
+        } finally {
+          gitRepository.close();
+        }
+      } finally {
+        repository.close();
+      }
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+
+  @Test
+  public void concurrentCommit() throws Exception {
+    final Repository repository = TestHelper.emptyRepository();
+    try {
+      final GitRepository gitRepository = createRepository(repository, false);
+      try {
+        final User user = new User("test", "Test User", null);
+        gitRepository.wrapLockWrite(lockManager -> {
+          final VcsCommitBuilder first = createFile(gitRepository, lockManager, "first.txt", "first");
+          final VcsCommitBuilder second = createFile(gitRepository, lockManager, "second.txt", "second");
+          final VcsCommitBuilder conflict = createFile(gitRepository, lockManager, "first.txt", "conflict");
+          Assert.assertNotNull(first.commit(user, "First"));
+          // Independent changes should be rebased on new branch head.
+          final VcsRevision revision = second.commit(user, "Second");
+          Assert.assertNotNull(revision);
+          Assert.assertEquals(revision.getId(), 2);
+          Assert.assertNotNull(revision.getFile("first.txt"));
+          Assert.assertNotNull(revision.getFile("second.txt"));
+          // Changes of the same file should be rejected.
+          Assert.assertNull(conflict.commit(user, "Conflict"));
+          return Boolean.TRUE;
+        });
+        Assert.assertEquals(gitRepository.getLatestRevision().getId(), 2);
+        Assert.assertEquals(gitRepository.getPushRebaseCount(), 1);
+      } finally {
+        gitRepository.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @Test
+  public void concurrentDirectoryChange() throws Exception {
+    final Repository repository = TestHelper.emptyRepository();
+    try {
+      final GitRepository gitRepository = createRepository(repository, false);
+      try {
+        final User user = new User("test", "Test User", null);
+        gitRepository.wrapLockWrite(lockManager -> {
+          final VcsCommitBuilder create = gitRepository.createCommitBuilder(lockManager, Collections.emptyMap());
+          create.addDir("dir", null);
+          saveFile(gitRepository, create, "a.txt", "a");
+          create.closeDir();
+          Assert.assertNotNull(create.commit(user, "Create dir"));
+
+          final VcsCommitBuilder delete = gitRepository.createCommitBuilder(lockManager, Collections.emptyMap());
+          delete.delete("dir");
+          final VcsCommitBuilder add = gitRepository.createCommitBuilder(lockManager, Collections.emptyMap());
+          add.openDir("dir");
+          saveFile(gitRepository, add, "b.txt", "b");
+          add.closeDir();
+          Assert.assertNotNull(add.commit(user, "Add file"));
+          // Directory removal should not be rebased over added file.
+          Assert.assertNull(delete.commit(user, "Remove dir"));
+          return Boolean.TRUE;
+        });
+        Assert.assertEquals(gitRepository.getLatestRevision().getId(), 2);
+        Assert.assertNotNull(gitRepository.getLatestRevision().getFile("dir/b.txt"));
+        Assert.assertEquals(gitRepository.getPushRebaseCount(), 0);
+      } finally {
+        gitRepository.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @Test
+  public void concurrentConfigChange() throws Exception {
+    final Repository repository = TestHelper.emptyRepository();
+    try {
+      final GitRepository gitRepository = createRepository(repository, false);
+      try {
+        final User user = new User("test", "Test User", null);
+        gitRepository.wrapLockWrite(lockManager -> {
+          final VcsCommitBuilder file = createFile(gitRepository, lockManager, "sample.txt", "sample");
+          final VcsCommitBuilder attributes = createFile(gitRepository, lockManager, ".gitattributes", "*.txt\t\t\ttext eol=native\n");
+          Assert.assertNotNull(attributes.commit(user, "Add .gitattributes"));
+          // File properties are changed by .gitattributes: commit should be rejected instead of properties validation failure.
+          Assert.assertNull(file.commit(user, "Add file"));
+          return Boolean.TRUE;
+        });
+        Assert.assertEquals(gitRepository.getLatestRevision().getId(), 1);
+        Assert.assertEquals(gitRepository.getPushRebaseCount(), 0);
+      } finally {
+        gitRepository.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @Test
+  public void lockValidation() throws Exception {
+    final Repository repository = TestHelper.emptyRepository();
+    try {
+      final GitRepository gitRepository = createRepository(repository, false);
+      try {
+        final User user = new User("test", "Test User", null);
+        gitRepository.wrapLockWrite(lockManager -> {
+          Assert.assertNotNull(createFile(gitRepository, lockManager, "a.txt", "a").commit(user, "Add a.txt"));
+          Assert.assertNotNull(createFile(gitRepository, lockManager, "b.txt", "b").commit(user, "Add b.txt"));
+          lockManager.renewLocks(new LockDesc[]{
+              new LockDesc("/a.txt", "", "token-a", user.getUserName(), null, 0),
+              new LockDesc("/b.txt", "", "token-b", user.getUserName(), null, 0),
+          });
+          final VcsCommitBuilder builder = gitRepository.createCommitBuilder(lockManager, Collections.emptyMap());
+          builder.delete("a.txt");
+          Assert.assertNotNull(builder.commit(user, "Remove a.txt"));
+          return Boolean.TRUE;
+        });
+        // Only lock of changed path should be removed.
+        gitRepository.wrapLockRead(lockManager -> {
+          Assert.assertNull(lockManager.getLock("/a.txt"));
+          Assert.assertNotNull(lockManager.getLock("/b.txt"));
+          return Boolean.TRUE;
+        });
+      } finally {
+        gitRepository.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @Test
+  public void legacyLocks() throws Exception {
+    final Repository repository = TestHelper.emptyRepository();
+    try {
+      final GitRepository first = createRepository(repository, false);
+      try {
+        final User user = new User("test", "Test User", null);
+        first.wrapLockWrite(lockManager -> createFile(first, lockManager, "a.txt", "a").commit(user, "Add a.txt"));
+        final String hash = first.getLatestRevision().getFile("a.txt").getContentHash();
+        // Locks of all repositories were stored in one map with "uuid:path" keys.
+        final DB cacheDb = DBMaker.newMemoryDB().make();
+        final Map<String, LockDesc> legacy = cacheDb.createTreeMap("locks").valueSerializer(new PersistentLockFactory.CustomSerializer()).make();
+        legacy.put(first.getUuid() + ":/a.txt", new LockDesc("/a.txt", hash, "token-a", user.getUserName(), null, 0));
+        legacy.put("other:/a.txt", new LockDesc("/a.txt", hash, "token-other", user.getUserName(), null, 0));
+        cacheDb.commit();
+
+        final GitRepository second = createRepository(repository, false, cacheDb);
+        try {
+          second.wrapLockRead(lockManager -> {
+            final LockDesc lockDesc = lockManager.getLock("/a.txt");
+            Assert.assertNotNull(lockDesc);
+            Assert.assertEquals(lockDesc.getToken(), "token-a");
+            return Boolean.TRUE;
+          });
+          Assert.assertEquals(legacy.keySet(), Collections.singleton("other:/a.txt"));
+        } finally {
+          second.close();
+        }
+      } finally {
+        first.close();
+      }
+    } finally {
+      repository.close();
+    }
+  }
+
+  @NotNull
+  private static VcsCommitBuilder createFile(@NotNull GitRepository gitRepository, @NotNull LockManagerWrite lockManager, @NotNull String name, @NotNull String content) throws IOException, SVNException {
+    final VcsCommitBuilder builder = gitRepository.createCommitBuilder(lockManager, Collections.emptyMap());
+    saveFile(gitRepository, builder, name, content);
+    return builder;
+  }
+
+  private static void saveFile(@NotNull GitRepository gitRepository, @NotNull VcsCommitBuilder builder, @NotNull String name, @NotNull String content) throws IOException, SVNException {
+    final VcsDeltaConsumer deltaConsumer = gitRepository.createFile();
+    deltaConsumer.applyTextDelta(name, null);
+    new SVNDeltaGenerator().sendDelta(name, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), deltaConsumer, true);
+    builder.saveFile(name, deltaConsumer, false);
+  }
+
+  @NotNull
+  private static GitRepository createRepository(@NotNull Repository repository, boolean backgroundIndexing) throws IOException, SVNException {
+    return createRepository(repository, backgroundIndexing, DBMaker.newMemoryDB().make());
+  }
+
+  @NotNull
+  private static GitRepository createRepository(@NotNull Repository repository, boolean backgroundIndexing, @NotNull DB cacheDb) throws IOException, SVNException {
+    return new GitRepository(
+        repository,
+        Collections.emptyList(),
+        GitPushMode.SIMPLE,
+        Constants.MASTER,
+        true,
+        backgroundIndexing,
+        GitRepository.DEFAULT_DIRECTORY_PROPERTY_CACHE_SIZE,
+        GitRepository.DEFAULT_FILE_PROPERTY_CACHE_SIZE,
+        new PersistentLockFactory(cacheDb),
+        cacheDb
+    );
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test for LastChangeIndex.
+ */
+public class LastChangeIndexTest {
+  @Test
+  public void testChanges() {
+    final LastChangeIndex index = new LastChangeIndex();
+    index.add("/foo/bar.txt", 2, false);
+    index.add("/foo/bar.txt", 5, false);
+    index.add("/foo/bar.txt", 7, true);
+    index.add("/foo/bar.txt", 9, false);
+    index.add("/foo", 2, false);
+
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 1), LastChangeIndex.MARK_NO_FILE);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 2), 2);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 4), 2);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 5), 5);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 6), 5);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 7), LastChangeIndex.MARK_NO_FILE);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 8), LastChangeIndex.MARK_NO_FILE);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 9), 9);
+    Assert.assertEquals(index.getLastChange("/foo/bar.txt", 100), 9);
+
+    Assert.assertEquals(index.getLastChange("/foo", 3), 2);
+    Assert.assertEquals(index.getLastChange("/foo/bar", 3), LastChangeIndex.MARK_NO_FILE);
+    Assert.assertEquals(index.getLastChange("/bar.txt", 3), LastChangeIndex.MARK_NO_FILE);
+    Assert.assertEquals(index.getPathCount(), 2);
+  }
+
+  @Test
+  public void testSingleRemove() {
+    final LastChangeIndex index = new LastChangeIndex();
+    index.add("/foo", 3, true);
+    Assert.assertEquals(index.getLastChange("/foo", 2), LastChangeIndex.MARK_NO_FILE);
+    Assert.assertEquals(index.getLastChange("/foo", 3), LastChangeIndex.MARK_NO_FILE);
+    Assert.assertEquals(index.getLastChange("/foo", 4), LastChangeIndex.MARK_NO_FILE);
+  }
+
+  @Test
+  public void testManyPaths() {
+    final LastChangeIndex index = new LastChangeIndex();
+    for (int revision = 1; revision <= 20; ++revision) {
+      for (int i = 0; i < 1000; ++i) {
+        if ((i + revision) % 3 == 0) {
+          index.add("/dir" + (i % 17) + "/file" + i, revision, false);
+        }
+      }
+    }
+    Assert.assertEquals(index.getPathCount(), 1000 + 17);
+    for (int i = 0; i < 1000; ++i) {
+      final String path = "/dir" + (i % 17) + "/file" + i;
+      for (int revision = 0; revision <= 21; ++revision) {
+        int expected = LastChangeIndex.MARK_NO_FILE;
+        for (int j = Math.min(revision, 20); j >= 1; --j) {
+          if ((i + j) % 3 == 0) {
+            expected = j;
+            break;
+          }
+        }
+        Assert.assertEquals(index.getLastChange(path, revision), expected, path + "@" + revision);
+      }
+    }
+  }
+}
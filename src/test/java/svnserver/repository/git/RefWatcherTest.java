@@ -0,0 +1,59 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.git;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.TestHelper;
+
+import java.io.File;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for reference watcher.
+ */
+public class RefWatcherTest {
+  @Test
+  public void missingDirectory() throws Exception {
+    final File tempDir = TestHelper.createTempDir("git-as-svn");
+    try {
+      final Repository repository = GitCreateMode.EXAMPLE.createRepository(tempDir, Constants.MASTER);
+      try {
+        final String refName = Constants.R_HEADS + "feature/test";
+        final File refDir = new File(repository.getDirectory(), Constants.R_HEADS + "feature");
+        final Semaphore changes = new Semaphore(0);
+        final RefWatcher watcher = RefWatcher.create(repository.getDirectory(), refName, changes::release);
+        Assert.assertNotNull(watcher);
+        try {
+          // Watcher should not create directories in git directory.
+          Assert.assertFalse(refDir.exists());
+          final RefUpdate refUpdate = repository.updateRef(refName);
+          refUpdate.setNewObjectId(repository.resolve(Constants.MASTER));
+          Assert.assertEquals(refUpdate.update(), RefUpdate.Result.NEW);
+          Assert.assertTrue(changes.tryAcquire(30, TimeUnit.SECONDS), "Reference creation is not detected");
+          // Reference in created directory is watched too.
+          changes.drainPermits();
+          final RefUpdate deleteUpdate = repository.updateRef(refName);
+          deleteUpdate.setForceUpdate(true);
+          Assert.assertEquals(deleteUpdate.delete(), RefUpdate.Result.FORCED);
+          Assert.assertTrue(changes.tryAcquire(30, TimeUnit.SECONDS), "Reference removal is not detected");
+        } finally {
+          watcher.close();
+        }
+      } finally {
+        repository.close();
+      }
+    } finally {
+      TestHelper.deleteDirectory(tempDir);
+    }
+  }
+}
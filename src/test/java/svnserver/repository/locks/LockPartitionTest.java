@@ -0,0 +1,76 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.repository.locks;
+
+import org.jetbrains.annotations.NotNull;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import svnserver.repository.Depth;
+
+import java.util.*;
+
+/**
+ * Test for lock partition queries.
+ */
+public class LockPartitionTest {
+  @Test
+  public void depth() throws Exception {
+    final LockPartition partition = createPartition(DBMaker.newMemoryDB().make());
+    for (String path : new String[]{"/a.txt", "/dir/b.txt", "/dir/c.txt", "/dir/sub/d.txt", "/dir-e.txt", "/dir0.txt"}) {
+      partition.put(createLock(path));
+    }
+    Assert.assertEquals(getLocks(partition, "", Depth.Files), paths("/a.txt", "/dir-e.txt", "/dir0.txt"));
+    Assert.assertEquals(getLocks(partition, "/dir", Depth.Empty), paths());
+    Assert.assertEquals(getLocks(partition, "/dir", Depth.Immediates), paths("/dir/b.txt", "/dir/c.txt"));
+    Assert.assertEquals(getLocks(partition, "/dir", Depth.Infinity), paths("/dir/b.txt", "/dir/c.txt", "/dir/sub/d.txt"));
+    Assert.assertEquals(getLocks(partition, "/dir/b.txt", Depth.Files), paths("/dir/b.txt"));
+    Assert.assertEquals(getLocks(partition, "/dir/b.txt", Depth.Infinity), paths("/dir/b.txt"));
+    Assert.assertEquals(getLocks(partition, "", Depth.Infinity).size(), 6);
+
+    partition.remove("/dir/b.txt");
+    Assert.assertEquals(getLocks(partition, "/dir", Depth.Files), paths("/dir/c.txt"));
+  }
+
+  @Test
+  public void rebuildIndex() throws Exception {
+    final DB db = DBMaker.newMemoryDB().make();
+    createPartition(db).put(createLock("/dir/a.txt"));
+    db.delete("test.children");
+    Assert.assertEquals(getLocks(createPartition(db), "/dir", Depth.Files), paths("/dir/a.txt"));
+  }
+
+  @NotNull
+  private static LockPartition createPartition(@NotNull DB db) {
+    return new LockPartition(
+        db.createTreeMap("test").valueSerializer(new PersistentLockFactory.CustomSerializer()).makeOrGet(),
+        db.createTreeSet("test.children").makeOrGet()
+    );
+  }
+
+  @NotNull
+  private static LockDesc createLock(@NotNull String path) {
+    return new LockDesc(path, "hash", "token", "user", null, 0);
+  }
+
+  @NotNull
+  private static Set<String> getLocks(@NotNull LockPartition partition, @NotNull String path, @NotNull Depth depth) throws Exception {
+    final Set<String> result = new TreeSet<>();
+    final Iterator<LockDesc> iter = depth.visit(new TreeMapLockDepthVisitor(partition, path));
+    while (iter.hasNext()) {
+      result.add(iter.next().getPath());
+    }
+    return result;
+  }
+
+  @NotNull
+  private static Set<String> paths(@NotNull String... paths) {
+    return new TreeSet<>(Arrays.asList(paths));
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test for DeltaCache.
+ */
+public class DeltaCacheTest {
+  @Test
+  public void recordAndReplay() throws IOException {
+    final DB cacheDb = DBMaker.newMemoryDB().make();
+    try {
+      final DeltaCache cache = new DeltaCache(cacheDb, 1024 * 1024, 100);
+      final String key = DeltaCache.getKey(null, "target", true);
+      Assert.assertNull(cache.get(key));
+
+      final DeltaCache.Recorder recorder = new DeltaCache.Recorder();
+      recorder.add(new byte[]{1, 2, 3});
+      recorder.add(new byte[0]);
+      recorder.add(new byte[]{4});
+      cache.put(key, recorder.toByteArray());
+
+      final byte[] delta = cache.get(key);
+      Assert.assertNotNull(delta);
+      final List<String> chunks = new ArrayList<>();
+      DeltaCache.forEachChunk(delta, (data, offset, length) -> chunks.add(Arrays.toString(Arrays.copyOfRange(data, offset, offset + length))));
+      Assert.assertEquals(chunks, Arrays.asList("[1, 2, 3]", "[]", "[4]"));
+    } finally {
+      cacheDb.close();
+    }
+  }
+
+  @Test
+  public void persistentFallback() throws IOException {
+    final DB cacheDb = DBMaker.newMemoryDB().make();
+    try {
+      // Delta doesn't fit into memory cache, but it is still available from persistent cache.
+      final DeltaCache cache = new DeltaCache(cacheDb, 4, 100);
+      final String key = DeltaCache.getKey("source", "target", false);
+      cache.put(key, new byte[16]);
+      Assert.assertEquals(cache.getMemoryCache().size(), 0);
+      Assert.assertNotNull(cache.get(key));
+      Assert.assertNull(cache.get(DeltaCache.getKey("source", "target", true)));
+    } finally {
+      cacheDb.close();
+    }
+  }
+
+  @Test
+  public void persistentSize() throws IOException {
+    final DB cacheDb = DBMaker.newMemoryDB().make();
+    try {
+      final DeltaCache cache = new DeltaCache(cacheDb, 0, 40);
+      cache.put(DeltaCache.getKey("source", "first", false), new byte[16]);
+      cache.put(DeltaCache.getKey("source", "second", false), new byte[16]);
+      cache.put(DeltaCache.getKey("source", "third", false), new byte[16]);
+      cache.put(DeltaCache.getKey("source", "large", false), new byte[41]);
+      // Oldest delta should be removed to fit size limit, too large delta should not be stored at all.
+      Assert.assertNull(cache.get(DeltaCache.getKey("source", "first", false)));
+      Assert.assertNotNull(cache.get(DeltaCache.getKey("source", "second", false)));
+      Assert.assertNotNull(cache.get(DeltaCache.getKey("source", "third", false)));
+      Assert.assertNull(cache.get(DeltaCache.getKey("source", "large", false)));
+    } finally {
+      cacheDb.close();
+    }
+  }
+
+  @Test
+  public void persistentCommit() throws IOException {
+    final DB cacheDb = DBMaker.newMemoryDB().make();
+    try {
+      final DeltaCache cache = new DeltaCache(cacheDb, 1024, 100);
+      cache.put(DeltaCache.getKey("source", "target", false), new byte[16]);
+      cache.commit();
+      // Uncommitted changes of other writers are dropped, but committed delta should survive.
+      cacheDb.rollback();
+      Assert.assertNotNull(new DeltaCache(cacheDb, 1024, 100).get(DeltaCache.getKey("source", "target", false)));
+    } finally {
+      cacheDb.close();
+    }
+  }
+}
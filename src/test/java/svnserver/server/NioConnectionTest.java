@@ -0,0 +1,68 @@
+/**
+ * This file is part of git-as-svn. It is subject to the license terms
+ * in the LICENSE file found in the top-level directory of this distribution
+ * and at http://www.gnu.org/licenses/gpl-2.0.html. No part of git-as-svn,
+ * including this file, may be copied, modified, propagated, or distributed
+ * except according to the terms contained in the LICENSE file.
+ */
+package svnserver.server;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc2.SvnCheckout;
+import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
+import org.tmatesoft.svn.core.wc2.SvnTarget;
+import svnserver.SvnTestHelper;
+import svnserver.SvnTestServer;
+
+import java.io.File;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Tests for {@link ConnectionMode#NIO} connection mode.
+ */
+public class NioConnectionTest {
+  /**
+   * Commit and checkout with single worker thread, while other clients don't send complete messages.
+   */
+  @Test(timeOut = 60000)
+  public void commitAndCheckout() throws Exception {
+    try (SvnTestServer server = SvnTestServer.createEmpty(ConnectionMode.NIO, 1)) {
+      final SVNURL url = server.getUrl();
+      try (
+          Socket silent = new Socket(url.getHost(), url.getPort());
+          Socket partial = new Socket(url.getHost(), url.getPort())
+      ) {
+        partial.getOutputStream().write("( 2 ( edit-pipeline svndiff1 ) 100:svn://".getBytes(StandardCharsets.UTF_8));
+        partial.getOutputStream().flush();
+
+        // Content is larger than connection buffer.
+        final StringBuilder content = new StringBuilder();
+        final Random random = new Random(0);
+        while (content.length() < 200 * 1024) {
+          content.append(Long.toHexString(random.nextLong())).append('\n');
+        }
+        final SVNRepository repo = server.openSvnRepository();
+        SvnTestHelper.createFile(repo, "/large.txt", content.toString(), null);
+        SvnTestHelper.modifyFile(repo, "/large.txt", content + "tail\n", repo.getLatestRevision());
+        SvnTestHelper.checkFileContent(repo, "/large.txt", content + "tail\n");
+
+        final SvnOperationFactory factory = server.createOperationFactory();
+        final SvnCheckout checkout = factory.createCheckout();
+        checkout.setSource(SvnTarget.fromURL(url));
+        checkout.setSingleTarget(SvnTarget.fromFile(server.getTempDirectory()));
+        checkout.setRevision(SVNRevision.HEAD);
+        checkout.run();
+        final File file = new File(server.getTempDirectory(), "large.txt");
+        Assert.assertEquals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), content + "tail\n");
+        Assert.assertFalse(silent.isClosed());
+      }
+    }
+  }
+}
@@ -14,6 +14,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.tmatesoft.sqljet.core.internal.SqlJetPagerJournalMode;
 import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.internal.wc17.SVNWCContext;
 import org.tmatesoft.svn.core.io.ISVNEditor;
 import org.tmatesoft.svn.core.io.SVNRepository;
@@ -25,7 +26,9 @@ import org.tmatesoft.svn.core.wc2.*;
 import svnserver.SvnTestServer;
 import svnserver.TestHelper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.file.Files;
 import java.util.*;
 
 import static svnserver.SvnTestHelper.sendDeltaAndClose;
@@ -51,6 +54,50 @@ public class SvnCheckoutTest {
     }
   }
 
+  /**
+   * Checkout binary files, sent as full text without delta generation.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void checkoutBinary() throws Exception {
+    try (SvnTestServer server = SvnTestServer.createEmpty()) {
+      final Map<String, byte[]> files = new TreeMap<>();
+      files.put("/empty.bin", new byte[0]);
+      files.put("/small.bin", new byte[]{0, 1, 2});
+      final byte[] large = new byte[300 * 1024 + 7];
+      new Random(0).nextBytes(large);
+      large[0] = 0;
+      files.put("/large.bin", large);
+
+      final SVNRepository repo = server.openSvnRepository();
+      final ISVNEditor editor = repo.getCommitEditor("Add binary files", null, false, null);
+      editor.openRoot(-1);
+      for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+        editor.addFile(entry.getKey(), null, -1);
+        if (entry.getValue().length > 0) {
+          editor.changeFileProperty(entry.getKey(), SVNProperty.MIME_TYPE, SVNPropertyValue.create(SVNFileUtil.BINARY_MIME_TYPE));
+        }
+        sendDeltaAndClose(editor, entry.getKey(), null, entry.getValue());
+      }
+      editor.closeDir();
+      editor.closeEdit();
+
+      final SvnOperationFactory factory = server.createOperationFactory();
+      final SvnCheckout checkout = factory.createCheckout();
+      checkout.setSource(SvnTarget.fromURL(server.getUrl()));
+      checkout.setSingleTarget(SvnTarget.fromFile(server.getTempDirectory()));
+      checkout.run();
+
+      for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+        Assert.assertEquals(Files.readAllBytes(new File(server.getTempDirectory(), entry.getKey()).toPath()), entry.getValue(), entry.getKey());
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        repo.getFile(entry.getKey(), -1, null, stream);
+        Assert.assertEquals(stream.toByteArray(), entry.getValue(), entry.getKey());
+      }
+    }
+  }
+
   /**
    * Workcopy mixed version update smoke test.
    *
@@ -15,12 +15,12 @@ import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.io.ISVNEditor;
 import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
 import svnserver.SvnTestServer;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 import static svnserver.SvnTestHelper.*;
 
@@ -151,6 +151,59 @@ public class SvnCommitTest {
     }
   }
 
+  /**
+   * Check commit of several large files with bad checksum.
+   * <p>
+   * Files are larger than pending delta chunk limit, so connection thread should wait for file processing.
+   * Checksum error should be reported on commit completion.
+   *
+   * @throws Exception
+   */
+  @Test(timeOut = 120000)
+  public void commitLargeFilesBadChecksum() throws Exception {
+    try (SvnTestServer server = SvnTestServer.createEmpty()) {
+      final SVNRepository repo = server.openSvnRepository();
+      final Random random = new Random(0);
+      final Map<String, byte[]> files = new TreeMap<>();
+      for (int i = 0; i < 3; ++i) {
+        final byte[] data = new byte[8 * 1024 * 1024];
+        random.nextBytes(data);
+        files.put("/file" + i + ".txt", Base64.getMimeEncoder().encode(data));
+      }
+
+      final ISVNEditor editor = repo.getCommitEditor("Bad checksum", null, false, null);
+      editor.openRoot(-1);
+      for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+        editor.addFile(entry.getKey(), null, -1);
+        editor.applyTextDelta(entry.getKey(), null);
+        new SVNDeltaGenerator().sendDelta(entry.getKey(), new ByteArrayInputStream(entry.getValue()), editor, true);
+        editor.closeFile(entry.getKey(), "00000000000000000000000000000000");
+      }
+      editor.closeDir();
+      try {
+        editor.closeEdit();
+        Assert.fail();
+      } catch (SVNException e) {
+        Assert.assertEquals(e.getErrorMessage().getErrorCode(), SVNErrorCode.CHECKSUM_MISMATCH);
+      }
+      Assert.assertEquals(repo.getLatestRevision(), 0);
+
+      // Same files with valid checksum.
+      final ISVNEditor validEditor = repo.getCommitEditor("Valid checksum", null, false, null);
+      validEditor.openRoot(-1);
+      for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+        validEditor.addFile(entry.getKey(), null, -1);
+        sendDeltaAndClose(validEditor, entry.getKey(), null, entry.getValue());
+      }
+      validEditor.closeDir();
+      validEditor.closeEdit();
+      Assert.assertEquals(repo.getLatestRevision(), 1);
+      for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+        checkFileContent(repo, entry.getKey(), new String(entry.getValue(), StandardCharsets.UTF_8));
+      }
+    }
+  }
+
   /**
    * Check commit up-to-date.
    *
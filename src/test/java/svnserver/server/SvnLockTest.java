@@ -407,6 +407,64 @@ public class SvnLockTest {
     }
   }
 
+  /**
+   * Check that failure of one path doesn't prevent locking of other paths.
+   *
+   * @throws Exception
+   */
+  @Test(dataProvider = "all", dataProviderClass = SvnTesterDataProvider.class)
+  public void lockMany(@NotNull SvnTesterFactory factory) throws Exception {
+    try (SvnTester server = factory.create()) {
+      final SVNRepository repo = server.openSvnRepository();
+      {
+        final ISVNEditor editor = repo.getCommitEditor("Intital state", null, false, null);
+        editor.openRoot(-1);
+        editor.addDir("/example", null, -1);
+        editor.addFile("/example/a.txt", null, -1);
+        sendDeltaAndClose(editor, "/example/a.txt", null, "Source content");
+        editor.addFile("/example/b.txt", null, -1);
+        sendDeltaAndClose(editor, "/example/b.txt", null, "Source content");
+        editor.closeDir();
+        editor.addFile("/c.txt", null, -1);
+        sendDeltaAndClose(editor, "/c.txt", null, "Source content");
+        editor.closeDir();
+        editor.closeEdit();
+      }
+      final long latestRevision = repo.getLatestRevision();
+      final SVNLock lockB = lock(repo, "/example/b.txt", latestRevision, false, null);
+      Assert.assertNotNull(lockB);
+
+      final Map<String, Long> pathsToRevisions = new HashMap<>();
+      pathsToRevisions.put("/c.txt", latestRevision);
+      pathsToRevisions.put("/example/a.txt", latestRevision);
+      pathsToRevisions.put("/example/b.txt", latestRevision);
+      pathsToRevisions.put("/example/d.txt", latestRevision);
+      final Map<String, SVNErrorCode> errors = new HashMap<>();
+      final List<SVNLock> locks = new ArrayList<>();
+      repo.lock(pathsToRevisions, null, false, new ISVNLockHandler() {
+        @Override
+        public void handleLock(@NotNull String path, @Nullable SVNLock lock, @Nullable SVNErrorMessage error) throws SVNException {
+          if (error != null) {
+            errors.put(StringHelper.baseName(path), error.getErrorCode());
+          } else {
+            Assert.assertNotNull(lock);
+            locks.add(lock);
+          }
+        }
+
+        @Override
+        public void handleUnlock(String path, SVNLock lock, SVNErrorMessage error) throws SVNException {
+          Assert.fail();
+        }
+      });
+      Assert.assertEquals(errors.get("b.txt"), SVNErrorCode.FS_PATH_ALREADY_LOCKED);
+      Assert.assertEquals(errors.get("d.txt"), SVNErrorCode.FS_OUT_OF_DATE);
+      Assert.assertEquals(errors.size(), 2);
+      Assert.assertEquals(locks.size(), 2);
+      compareLocks(repo.getLocks(""), lockB, locks.get(0), locks.get(1));
+    }
+  }
+
   /**
    * Check for deny modify locking file.
    *
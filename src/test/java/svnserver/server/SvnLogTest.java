@@ -9,8 +9,10 @@ package svnserver.server;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.testng.internal.junit.ArrayAsserts;
+import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNLogEntry;
 import org.tmatesoft.svn.core.SVNLogEntryPath;
@@ -145,6 +147,56 @@ public class SvnLogTest {
     }
   }
 
+  /**
+   * Check svn log for multiple paths.
+   */
+  @Test
+  public void multiplePaths() throws Exception {
+    try (SvnTestServer server = SvnTestServer.createEmpty()) {
+      final SVNRepository repo = server.openSvnRepository();
+      // r1 - add single file.
+      createFile(repo, "/foo.txt", "", null);
+      // r2 - add other file.
+      createFile(repo, "/bar.txt", "", null);
+      // r3 - add third file.
+      createFile(repo, "/baz.txt", "", null);
+      // r4 - change first file.
+      modifyFile(repo, "/foo.txt", "New body", repo.getLatestRevision());
+
+      final long last = repo.getLatestRevision();
+      final List<LogEntry> actual = new ArrayList<>();
+      repo.log(new String[]{"/baz.txt", "/foo.txt"}, last, 0, true, false, 0, logEntry -> actual.add(new LogEntry(logEntry)));
+      ArrayAsserts.assertArrayEquals(new LogEntry[]{
+          new LogEntry(4, "Modify file: /foo.txt", "M /foo.txt"),
+          new LogEntry(3, "Create file: /baz.txt", "A /baz.txt"),
+          new LogEntry(1, "Create file: /foo.txt", "A /foo.txt"),
+      }, actual.toArray(new LogEntry[actual.size()]));
+    }
+  }
+
+  /**
+   * Check that absent path is reported before any log entry.
+   */
+  @Test
+  public void absentPath() throws Exception {
+    try (SvnTestServer server = SvnTestServer.createEmpty()) {
+      final SVNRepository repo = server.openSvnRepository();
+      createFile(repo, "/foo.txt", "", null);
+
+      final long last = repo.getLatestRevision();
+      final List<LogEntry> actual = new ArrayList<>();
+      try {
+        repo.log(new String[]{"/foo.txt", "/bar.txt"}, last, 0, true, false, 0, logEntry -> actual.add(new LogEntry(logEntry)));
+        Assert.fail();
+      } catch (SVNException e) {
+        Assert.assertEquals(e.getErrorMessage().getErrorCode(), SVNErrorCode.FS_NOT_FOUND);
+      }
+      Assert.assertTrue(actual.isEmpty());
+      // Connection is still usable.
+      checkLog(repo, last, 0, "/foo.txt", new LogEntry(1, "Create file: /foo.txt", "A /foo.txt"));
+    }
+  }
+
   /**
    * Check file recreate log test.
    */